@@ -0,0 +1,67 @@
+package by.baes.authservice.cache;
+
+import by.baes.authservice.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Значение кэша пользователей в Redis: Jackson JSON против protobuf с байтом версии.
+ * Размер значения печатается при старте, скорость — ops/us.
+ * Запуск: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDtoCodecBenchmark {
+
+    private final RedisSerializer<UserDto> json = new Jackson2JsonRedisSerializer<>(UserDto.class);
+    private final RedisSerializer<UserDto> binary = new UserDtoRedisSerializer();
+    private UserDto user;
+    private byte[] jsonValue;
+    private byte[] binaryValue;
+
+    @Setup
+    public void setUp() {
+        user = new UserDto();
+        user.setId(42L);
+        user.setName("ivan.petrov");
+        user.setEmail("ivan.petrov@example.com");
+        user.setTelegramId("123456789");
+        user.setRoles(new LinkedHashSet<>(List.of("USER", "ADMIN")));
+
+        jsonValue = json.serialize(user);
+        binaryValue = binary.serialize(user);
+        System.out.printf("%nusers value: JSON %d bytes, binary %d bytes%n", jsonValue.length, binaryValue.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return json.serialize(user);
+    }
+
+    @Benchmark
+    public UserDto jsonDeserialize() {
+        return json.deserialize(jsonValue);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(user);
+    }
+
+    @Benchmark
+    public UserDto binaryDeserialize() {
+        return binary.deserialize(binaryValue);
+    }
+}
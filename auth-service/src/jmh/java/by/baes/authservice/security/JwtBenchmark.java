@@ -0,0 +1,88 @@
+package by.baes.authservice.security;
+
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.impl.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подпись и проверка токена через JwtUtil для каждого алгоритма, и для сравнения —
+ * прежняя проверка, которая собирала парсер и ключ общего секрета на каждом вызове.
+ * Запуск: ./gradlew jmh -PjmhIncludes=JwtBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtBenchmark {
+
+    private static final String SECRET = "bXktdmVyeS1zZWN1cmUtc2VjcmV0LWtleS1mb3ItYmVuY2htYXJrcy0wMTIzNDU2Nzg5";
+
+    @Param({"HS512", "RS256", "ES256"})
+    private String algorithm;
+
+    private JwtKeyRing keyRing;
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setAlgorithm(SignatureAlgorithm.forName(algorithm));
+        properties.setEphemeralKey(true);
+        keyRing = new JwtKeyRing(properties);
+        jwtUtil = new JwtUtil(keyRing, SECRET, 3_600_000L);
+        Role role = new Role();
+        role.setName("USER");
+        user = new User();
+        user.setId(42L);
+        user.setName("ivan.petrov");
+        user.setEmail("ivan.petrov@example.com");
+        user.setRoles(Set.of(role));
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims verifyRebuildingParser() {
+        return Jwts.parser()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        SignatureAlgorithm headerAlgorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+                        if (headerAlgorithm.isHmac()) {
+                            return new SecretKeySpec(TextCodec.BASE64.decode(SECRET), headerAlgorithm.getJcaName());
+                        }
+                        return keyRing.getPublicKey(header.getKeyId()).orElseThrow();
+                    }
+                })
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
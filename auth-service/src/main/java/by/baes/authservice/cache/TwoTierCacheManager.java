@@ -0,0 +1,97 @@
+package by.baes.authservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Оборачивает кэши общего CacheManager (Redis) в TwoTierCache с локальным L1.
+ * Инвалидации L1 рассылаются сообщениями вида "id экземпляра \n имя кэша \n ключ" (пустой ключ — очистка).
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    private static final char SEPARATOR = '\n';
+
+    private final CacheManager remote;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final MeterRegistry meterRegistry;
+    private final Consumer<String> publisher;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remote, long localMaxSize, Duration localTtl,
+                               MeterRegistry meterRegistry, Consumer<String> publisher) {
+        this.remote = remote;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.meterRegistry = meterRegistry;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> createCache(remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    // Обработка сообщения об инвалидации от любого экземпляра, свои сообщения пропускаются
+    public void onInvalidation(String message) {
+        int first = message.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            log.warn("Malformed cache invalidation message");
+            return;
+        }
+        if (message.regionMatches(0, instanceId, 0, first) && first == instanceId.length()) {
+            return;
+        }
+        TwoTierCache cache = caches.get(message.substring(first + 1, second));
+        if (cache != null) {
+            String key = message.substring(second + 1);
+            cache.evictLocal(key.isEmpty() ? null : key);
+        }
+    }
+
+    void publishEviction(String cacheName, String key) {
+        try {
+            publisher.accept(instanceId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : ""));
+        } catch (RuntimeException e) {
+            // L2 уже обновлён; у других экземпляров L1 догонит по TTL
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private TwoTierCache createCache(Cache remoteCache) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, remoteCache.getName() + ".l1");
+        return new TwoTierCache(remoteCache, local, this, meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package by.baes.authservice.cache;
+
+import by.baes.auth.grpc.UserResponse;
+import by.baes.authservice.dto.UserDto;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+
+/**
+ * Бинарный формат UserDto для Redis: байт версии, затем UserResponse из auth.proto.
+ * Записи другой версии читаются как промах кэша и перезаписываются при следующей загрузке.
+ * Используется кэшем users с ключом по имени пользователя; прежние ключи по дайджесту токена
+ * и TTL по сроку жизни токена ушли вместе с кэшем userDtos.
+ */
+public class UserDtoRedisSerializer implements RedisSerializer<UserDto> {
+
+    static final byte VERSION = 1;
+
+    @Override
+    public byte[] serialize(UserDto userDto) {
+        if (userDto == null) {
+            return null;
+        }
+        UserResponse.Builder builder = UserResponse.newBuilder()
+                .setId(userDto.getId() != null ? userDto.getId() : 0L)
+                .setName(userDto.getName() != null ? userDto.getName() : "")
+                .setEmail(userDto.getEmail() != null ? userDto.getEmail() : "")
+                .setTelegramId(userDto.getTelegramId() != null ? userDto.getTelegramId() : "")
+                .setExpiresAt(userDto.getExpiresAt() != null ? userDto.getExpiresAt() : 0L);
+        if (userDto.getRoles() != null) {
+            builder.addAllRoles(userDto.getRoles());
+        }
+        UserResponse message = builder.build();
+        // Пишем сразу в итоговый массив после байта версии, без промежуточной копии
+        int size = message.getSerializedSize();
+        byte[] bytes = new byte[1 + size];
+        bytes[0] = VERSION;
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes, 1, size);
+        try {
+            message.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize cached user", e);
+        }
+        return bytes;
+    }
+
+    @Override
+    public UserDto deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes[0] != VERSION) {
+            return null;
+        }
+        UserResponse message;
+        try {
+            message = UserResponse.parser().parseFrom(bytes, 1, bytes.length - 1);
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Cannot deserialize cached user", e);
+        }
+        UserDto userDto = new UserDto();
+        userDto.setId(message.getId());
+        userDto.setName(message.getName());
+        userDto.setEmail(message.getEmail().isEmpty() ? null : message.getEmail());
+        userDto.setTelegramId(message.getTelegramId().isEmpty() ? null : message.getTelegramId());
+        userDto.setRoles(new LinkedHashSet<>(message.getRolesList()));
+        userDto.setExpiresAt(message.getExpiresAt() != 0 ? message.getExpiresAt() : null);
+        return userDto;
+    }
+}
@@ -1,32 +1,64 @@
 package by.baes.authservice.config;
 
-import by.baes.authservice.dto.UserDto;
-import by.baes.authservice.entity.User;
+import by.baes.authservice.cache.TwoTierCacheManager;
+import by.baes.authservice.cache.UserDtoRedisSerializer;
+import by.baes.authservice.service.UserProjectionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${cache.invalidation-channel:auth-service:cache-invalidation}")
+    private String invalidationChannel;
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        Jackson2JsonRedisSerializer<UserDto> userDtoSerializer = new Jackson2JsonRedisSerializer<>(UserDto.class);
-        RedisCacheConfiguration userDtoConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(24))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(userDtoSerializer))
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate redisTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cache.l1.max-size:10000}") long localMaxSize,
+                                     @Value("${cache.l1.ttl:5m}") Duration localTtl,
+                                     @Value("${cache.users.ttl:1h}") Duration usersTtl) {
+        // Проекции пользователей по имени; TTL — страховка на случай пропущенной инвалидации
+        RedisCacheConfiguration usersConfig = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(usersTtl)
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new UserDtoRedisSerializer()))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
-                .withCacheConfiguration("userDtos", userDtoConfig)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .withCacheConfiguration(UserProjectionService.CACHE_NAME, usersConfig)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // L1 в памяти перед Redis; инвалидации расходятся по всем экземплярам через pub/sub
+        return new TwoTierCacheManager(redisCacheManager, localMaxSize, localTtl, meterRegistry,
+                message -> redisTemplate.convertAndSend(invalidationChannel, message));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+            container.addMessageListener((message, pattern) -> twoTierCacheManager.onInvalidation(
+                    new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(invalidationChannel));
+        }
+        return container;
     }
 }
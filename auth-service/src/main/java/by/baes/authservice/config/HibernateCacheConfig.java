@@ -0,0 +1,95 @@
+package by.baes.authservice.config;
+
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.repository.RoleRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Второй уровень кэша Hibernate на JCache (Caffeine) с отдельными регионами и лимитами.
+ * Статистика регионов публикуется в Micrometer (hibernate.second.level.cache.*, hibernate.cache.query.*).
+ */
+@Configuration
+@Slf4j
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${cache.entity.user.max-size:10000}") long userMaxSize,
+                                              @Value("${cache.entity.user.ttl:5m}") Duration userTtl,
+                                              @Value("${cache.entity.query.max-size:1000}") long queryMaxSize) {
+        // Свой менеджер на контекст, а не общий по умолчанию для JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Role.CACHE_REGION, region(OptionalLong.empty(), OptionalLong.empty()));
+        // Предзагруженные запросы ролей не должны истекать вместе с общим регионом запросов
+        cacheManager.createCache(Role.QUERY_CACHE_REGION, region(OptionalLong.empty(), OptionalLong.empty()));
+        cacheManager.createCache(User.CACHE_REGION, region(OptionalLong.of(userMaxSize), OptionalLong.of(userTtl.toNanos())));
+        cacheManager.createCache(User.ROLES_CACHE_REGION, region(OptionalLong.of(userMaxSize), OptionalLong.of(userTtl.toNanos())));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(OptionalLong.of(queryMaxSize), OptionalLong.of(userTtl.toNanos())));
+        // Метки обновления таблиц нельзя вытеснять: без них кэш запросов вернёт устаревший результат
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                region(OptionalLong.empty(), OptionalLong.empty()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Все регионы созданы выше; неизвестный регион — ошибка конфигурации
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "auth-service", List.of())
+                .bindTo(registry);
+    }
+
+    // Роли загружаются целиком при старте: регистрация и /auth/roles дальше не ходят за ними в БД
+    @Bean
+    public ApplicationRunner roleCachePreloader(RoleRepository roleRepository) {
+        return args -> {
+            List<Role> roles = roleRepository.findAll();
+            roles.forEach(role -> roleRepository.findByName(role.getName()));
+            log.info("Preloaded {} roles into the second-level cache", roles.size());
+        };
+    }
+
+    // Hibernate хранит в регионах собственное разобранное состояние, копировать его при чтении не нужно
+    private static CaffeineConfiguration<Object, Object> region(OptionalLong maxSize, OptionalLong expireAfterWriteNanos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(maxSize);
+        configuration.setExpireAfterWrite(expireAfterWriteNanos);
+        return configuration;
+    }
+}
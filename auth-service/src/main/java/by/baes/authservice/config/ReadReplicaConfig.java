@@ -0,0 +1,76 @@
+package by.baes.authservice.config;
+
+import by.baes.authservice.datasource.ReadReplicaProperties;
+import by.baes.authservice.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Основная БД из spring.datasource и реплики из auth.datasource.replicas за маршрутизирующим DataSource.
+ * Без реплик не подключается, и DataSource создаёт Spring Boot как обычно. Миграции идут только в основную БД.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "auth.datasource", name = "replicas[0].url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @LiquibaseDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                       ReadReplicaProperties properties,
+                                                       MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReadReplicaProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            String name = "replica-" + (i + 1);
+            replicas.put(name, replicaDataSource(name, configured.get(i), primaryDataSource, meterRegistry));
+        }
+        log.info("Read-only transactions are routed to {} replicas", replicas.size());
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                properties.getHealthCheckInterval(), properties.getHealthCheckTimeout(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // Пулы реплик — не бины, их закрывает маршрутизирующий DataSource
+    private static HikariDataSource replicaDataSource(String name, ReadReplicaProperties.Replica replica,
+                                                      HikariDataSource primary, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(primary.getConnectionTimeout());
+        dataSource.setReadOnly(true);
+        // Недоступная при старте реплика не мешает запуску: её отключит проверка здоровья
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
@@ -1,6 +1,11 @@
 package by.baes.authservice.config;
 
 
+import by.baes.authservice.security.BoundedPasswordEncoder;
+import by.baes.authservice.security.IdentityAuthenticationFilter;
+import by.baes.identity.IdentityVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -10,25 +15,42 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, IdentityVerifier identityVerifier) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable) // Отключаем CSRF
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Отключаем сессии
                 .authorizeHttpRequests(auth -> auth
                         .anyRequest().permitAll() // Все запросы открыты
-                );
+                )
+                // Пользователь из заголовка X-Identity, выставленного gateway
+                .addFilterBefore(new IdentityAuthenticationFilter(identityVerifier), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public IdentityVerifier identityVerifier(@Value("${identity.header.key-id:1}") int keyId,
+                                             @Value("${identity.header.secret}") String secret) {
+        return new IdentityVerifier(Map.of(keyId, secret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // BCrypt на отдельном пуле по числу ядер, чтобы всплеск логинов не занимал CPU остальных запросов
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.bcrypt-strength:10}") int strength,
+                                           @Value("${auth.password.pool-size:0}") int poolSize,
+                                           @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                                           MeterRegistry meterRegistry) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package by.baes.authservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Виртуальные потоки для gRPC-сервера; Tomcat переключает сам Spring Boot по тому же spring.threads.virtual.enabled.
+ * Действует только на Java 21+, на более старой JVM настройка игнорируется.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    @Bean
+    public GrpcServerConfigurer virtualThreadGrpcExecutor() {
+        log.info("gRPC server calls run on virtual threads");
+        return serverBuilder -> serverBuilder.executor(new VirtualThreadTaskExecutor("grpc-"));
+    }
+}
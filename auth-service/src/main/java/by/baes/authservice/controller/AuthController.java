@@ -1,10 +1,14 @@
 package by.baes.authservice.controller;
 
 import by.baes.authservice.dto.AuthResponse;
+import by.baes.authservice.dto.ImportResult;
 import by.baes.authservice.dto.LoginRequest;
 import by.baes.authservice.dto.RegisterRequest;
 import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.dto.UserSlice;
 import by.baes.authservice.service.AuthService;
+import by.baes.authservice.service.UserExportService;
+import by.baes.authservice.service.UserImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,23 +18,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/auth")
 @Tag(name = "Authentication API", description = "API for user authentication, registration, and user management.")
 @Slf4j
 public class AuthController {
+    private static final String TEXT_CSV = "text/csv";
+
     private final AuthService authService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, UserImportService userImportService, UserExportService userExportService) {
         this.authService = authService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
         log.info("AuthController initialized");
     }
 
@@ -42,7 +59,9 @@ public class AuthController {
             @ApiResponse(responseCode = "400", description = "Invalid request data",
                     content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Bad Request", value = "{\"error\": \"Invalid credentials\"}"))),
             @ApiResponse(responseCode = "401", description = "Authentication failed",
-                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Unauthorized", value = "{\"error\": \"Invalid password\"}")))
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Unauthorized", value = "{\"error\": \"Invalid password\"}"))),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent password checks, retry later",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Service Unavailable", value = "{\"error\": \"Too many concurrent password checks, try again later\"}")))
     })
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(
@@ -65,7 +84,9 @@ public class AuthController {
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthResponse.class),
                             examples = @ExampleObject(name = "Successful registration", value = "{\"token\": \"eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...\"}"))),
             @ApiResponse(responseCode = "400", description = "Invalid request data or user already exists",
-                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Bad Request", value = "{\"error\": \"Username already exists: testuser\"}")))
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Bad Request", value = "{\"error\": \"Username already exists: testuser\"}"))),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent password checks, retry later",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Service Unavailable", value = "{\"error\": \"Too many concurrent password checks, try again later\"}")))
     })
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(
@@ -120,7 +141,8 @@ public class AuthController {
         return ResponseEntity.ok(roles);
     }
 
-    @Operation(summary = "Get all users", description = "Retrieves a paginated list of users, optionally filtered by roles.")
+    @Operation(summary = "Get all users", description = "Retrieves a paginated list of users with totals, optionally filtered by roles. "
+            + "Pass the cursor parameter to use keyset pagination instead.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved paginated list of users",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = Page.class),
@@ -141,6 +163,28 @@ public class AuthController {
         return ResponseEntity.ok(users);
     }
 
+    @Operation(summary = "Scroll users", description = "Retrieves users ordered by name with keyset pagination, optionally filtered by roles. "
+            + "Start with an empty cursor and pass nextCursor from the previous response; totals are not calculated.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a slice of users",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSlice.class),
+                            examples = @ExampleObject(name = "Users slice", value = "{\"content\": [{\"id\": 1, \"name\": \"testuser\", \"email\": \"test@example.com\", \"roles\": [\"USER\"]}], \"nextCursor\": \"MTp0ZXN0dXNlcg\", \"hasNext\": true}"))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Bad Request", value = "{\"errorCode\": \"INVALID_CURSOR\", \"message\": \"Invalid cursor: abc\"}")))
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/users", params = "cursor")
+    public ResponseEntity<UserSlice> scrollUsers(
+            @RequestParam(defaultValue = "") @Parameter(description = "Continuation token from the previous slice, empty for the first one", example = "") String cursor,
+            @RequestParam(defaultValue = "10") @Parameter(description = "Number of users per slice", example = "10") int size,
+            @RequestParam(defaultValue = "asc") @Parameter(description = "Sort direction (asc or desc)", example = "asc") String sort,
+            @RequestParam(required = false) @Parameter(description = "Filter by roles (optional)", example = "USER") List<String> roles
+    ) {
+        log.debug("Received request to scroll users with cursor: {}, size: {}, sort: {}, roles: {}", cursor, size, sort, roles);
+        UserSlice users = authService.scrollUsers(cursor, size, sort, roles);
+        return ResponseEntity.ok(users);
+    }
+
     @Operation(summary = "Get user by ID", description = "Retrieves detailed information about a user by their ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved user details",
@@ -158,4 +202,75 @@ public class AuthController {
         UserDto user = authService.getUserById(id);
         return ResponseEntity.ok(user);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Import users", description = "Creates users in bulk from a CSV file with a header row "
+            + "(name,email,password,passwordHash,telegramId,roles; roles separated by ';') or from NDJSON with one user per line. "
+            + "Each row needs either a password or a BCrypt passwordHash; rows without roles get USER. "
+            + "The body is read as a stream and the response reports the result of every row.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see per-row results",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResult.class),
+                            examples = @ExampleObject(name = "Import result", value = "{\"total\": 2, \"created\": 1, \"failed\": 1, \"durationMillis\": 85, \"rows\": [{\"line\": 2, \"name\": \"newuser\", \"status\": \"CREATED\", \"id\": 42}, {\"line\": 3, \"name\": \"testuser\", \"status\": \"DUPLICATE\", \"error\": \"Username already exists: testuser\"}]}"))),
+            @ApiResponse(responseCode = "400", description = "Unknown CSV column",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Bad Request", value = "{\"errorCode\": \"INVALID_IMPORT\", \"message\": \"Unknown CSV column: login\"}"))),
+            @ApiResponse(responseCode = "409", description = "Another import is running",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Conflict", value = "{\"errorCode\": \"IMPORT_IN_PROGRESS\", \"message\": \"Another user import is in progress\"}")))
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = "/users/import", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportResult> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) @Parameter(description = "text/csv or application/x-ndjson", example = TEXT_CSV) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        log.debug("Received user import request in {} format", format);
+        ImportResult result = userImportService.importUsers(body, format);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Export users", description = "Streams all users ordered by id as NDJSON, one user with roles per line, "
+            + "optionally filtered by roles. The response is gzip-compressed when the client accepts it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users stream",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            examples = @ExampleObject(name = "Users stream", value = "{\"id\": 1, \"name\": \"testuser\", \"email\": \"test@example.com\", \"telegramId\": null, \"roles\": [\"USER\"]}\n")))
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportUsers(
+            @RequestParam(required = false) @Parameter(description = "Filter by roles (optional)", example = "USER") List<String> roles,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) @Parameter(hidden = true) String acceptEncoding,
+            HttpServletResponse response
+    ) throws IOException {
+        log.debug("Received request to export users with roles: {}", roles);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            try (GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), 8192)) {
+                userExportService.export(roles, gzip);
+            }
+        } else {
+            OutputStream out = response.getOutputStream();
+            userExportService.export(roles, out);
+            out.flush();
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // gzip;q=0 — явный отказ
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
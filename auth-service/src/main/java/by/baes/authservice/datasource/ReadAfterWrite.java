@@ -0,0 +1,87 @@
+package by.baes.authservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Чтение своих записей при репликах с отставанием. Имена недавно записанных пользователей запоминаются
+ * на stickiness, их чтения идут в основную БД; промах на реплике повторяется на основной —
+ * это покрывает записи, сделанные другим экземпляром сервиса.
+ */
+@Component
+public class ReadAfterWrite {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean replicated;
+    private final Cache<String, Boolean> recentWrites;
+    private final TransactionTemplate primaryReads;
+
+    public ReadAfterWrite(ReadReplicaProperties properties, PlatformTransactionManager transactionManager) {
+        this.replicated = !properties.getReplicas().isEmpty();
+        this.primaryReads = new TransactionTemplate(transactionManager);
+        this.primaryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryReads.setReadOnly(true);
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStickiness())
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public boolean isReplicated() {
+        return replicated;
+    }
+
+    // Вызывать после коммита записи
+    public void written(String key) {
+        if (replicated) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+    }
+
+    public boolean isRecentlyWritten(String key) {
+        return replicated && recentWrites.getIfPresent(key) != null;
+    }
+
+    public <T> Optional<T> find(String key, Supplier<Optional<T>> finder) {
+        if (isRecentlyWritten(key)) {
+            return onPrimary(finder);
+        }
+        return find(finder);
+    }
+
+    // Без ключа: реплика, а при промахе — основная БД
+    public <T> Optional<T> find(Supplier<Optional<T>> finder) {
+        Optional<T> result = finder.get();
+        if (result.isEmpty() && replicated && !isPrimaryRequired()) {
+            return onPrimary(finder);
+        }
+        return result;
+    }
+
+    // Чтение в отдельной транзакции со своим EntityManager и соединением из основной БД: соединение
+    // внешней транзакции могло достаться реплике, а Hibernate держит его до её конца.
+    // EntityManager без транзакции (open-in-view) не приостанавливается, поэтому open-in-view выключен
+    public <T> T onPrimary(Supplier<T> reader) {
+        if (!replicated || isPrimaryRequired()) {
+            return reader.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return primaryReads.execute(status -> reader.get());
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,33 @@
+package by.baes.authservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.datasource")
+public class ReadReplicaProperties {
+
+    // Реплики для read-only транзакций; без них всё идёт в spring.datasource
+    private List<Replica> replicas = new ArrayList<>();
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+    // Сколько после записи пользователя его чтения идут в основную БД
+    private Duration stickiness = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username; // по умолчанию как у основной БД
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,179 @@
+package by.baes.authservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Соединения read-only транзакций — с реплик по кругу, остальные — с основной БД.
+ * Реплика, не отдавшая соединение или не прошедшая проверку, исключается до следующей успешной проверки;
+ * без живых реплик чтения идут в основную БД. Решение принимается при получении соединения,
+ * поэтому снаружи нужен LazyConnectionDataSourceProxy: флаг read-only транзакции выставляется
+ * уже после того, как менеджер транзакций попросил соединение.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int healthCheckTimeoutSeconds;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter failovers;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                      Duration healthCheckInterval, Duration healthCheckTimeout,
+                                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("auth.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the read replica currently receives read-only transactions")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        this.primaryConnections = connectionCounter(meterRegistry, "primary");
+        this.replicaConnections = connectionCounter(meterRegistry, "replica");
+        this.failovers = Counter.builder("auth.datasource.failovers")
+                .description("Read-only connections sent to the primary because a replica failed")
+                .register(meterRegistry);
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, healthCheckInterval.toMillis(),
+                healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isReadOnly()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = nextHealthyReplica();
+                if (replica == null) {
+                    break;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.markDown(e.getMessage());
+                    failovers.increment();
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Routing data source uses the credentials of its pools");
+    }
+
+    // Основная БД — отдельный бин и закрывается контекстом, пулы реплик — здесь
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Cannot close replica {}: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(healthCheckTimeoutSeconds)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown("connection is not valid");
+                }
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Health check of replica {} failed", replica.name, e);
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    boolean isHealthy(String name) {
+        return replicas.stream().anyMatch(replica -> replica.name.equals(name) && replica.healthy);
+    }
+
+    private static boolean isReadOnly() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadAfterWrite.isPrimaryRequired();
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("auth.datasource.connections")
+                .description("Connections handed out by the read/write routing data source")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void markDown(String reason) {
+            if (healthy) {
+                log.warn("Replica {} is down, reads go to other replicas or the primary: {}", name, reason);
+            }
+            healthy = false;
+        }
+
+        void markUp() {
+            if (!healthy) {
+                log.info("Replica {} is back", name);
+            }
+            healthy = true;
+        }
+    }
+}
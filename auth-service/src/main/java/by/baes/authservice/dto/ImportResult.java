@@ -0,0 +1,16 @@
+package by.baes.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ImportResult {
+    private int total;
+    private int created;
+    private int failed;
+    private long durationMillis;
+    private List<ImportRowResult> rows;
+}
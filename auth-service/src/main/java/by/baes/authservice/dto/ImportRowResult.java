@@ -0,0 +1,24 @@
+package by.baes.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+    // Номер строки во входных данных, начиная с 1 (в CSV строка 1 — заголовок)
+    private long line;
+    private String name;
+    private Status status;
+    private Long id;
+    private String error;
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,16 @@
+package by.baes.authservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Строка массового импорта: password хешируется при импорте, passwordHash (BCrypt) переносится как есть
+@Data
+public class ImportUserRequest {
+    private String name;
+    private String email;
+    private String password;
+    private String passwordHash;
+    private String telegramId;
+    private List<String> roles;
+}
@@ -0,0 +1,19 @@
+package by.baes.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TokenValidationResult {
+    private UserDto user;
+    private String error;
+
+    public static TokenValidationResult success(UserDto user) {
+        return new TokenValidationResult(user, null);
+    }
+
+    public static TokenValidationResult failure(String error) {
+        return new TokenValidationResult(null, error);
+    }
+}
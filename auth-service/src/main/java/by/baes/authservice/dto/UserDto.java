@@ -1,5 +1,6 @@
 package by.baes.authservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.Set;
@@ -11,4 +12,12 @@ public class UserDto {
     private String email;
     private String telegramId;
     private Set<String> roles;
+
+    // Заполняется только при валидации токена (epoch millis)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long expiresAt;
+
+    // jti токена, заполняется вместе с expiresAt
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String tokenId;
 }
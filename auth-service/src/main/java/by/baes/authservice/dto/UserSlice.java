@@ -0,0 +1,15 @@
+package by.baes.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Страница keyset-пагинации без общего числа записей; nextCursor передаётся в следующий запрос
+@Data
+@AllArgsConstructor
+public class UserSlice {
+    private List<UserDto> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
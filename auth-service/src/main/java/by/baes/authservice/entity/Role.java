@@ -2,11 +2,20 @@ package by.baes.authservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "roles")
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = Role.CACHE_REGION)
 public class Role {
+    // Справочник ролей меняется только миграциями
+    public static final String CACHE_REGION = "role";
+    // Результаты запросов по ролям: без срока жизни, как и сами роли
+    public static final String QUERY_CACHE_REGION = "role.queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
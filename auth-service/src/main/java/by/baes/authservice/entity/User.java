@@ -2,6 +2,8 @@ package by.baes.authservice.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -9,7 +11,12 @@ import java.util.Set;
 @Entity
 @Table(name = "users")
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
+    public static final String CACHE_REGION = "user";
+    public static final String ROLES_CACHE_REGION = "user.roles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,6 +30,7 @@ public class User {
     private String telegramId;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
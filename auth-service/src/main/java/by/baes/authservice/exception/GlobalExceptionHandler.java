@@ -2,6 +2,7 @@ package by.baes.authservice.exception;
 
 import by.baes.authservice.dto.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -46,6 +47,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid cursor error: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_CURSOR", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidImport(InvalidImportException ex) {
+        log.warn("Invalid import error: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("INVALID_IMPORT", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ImportInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleImportInProgress(ImportInProgressException ex) {
+        log.warn("Import rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("IMPORT_IN_PROGRESS", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingUnavailable(PasswordHashingUnavailableException ex) {
+        log.warn("Password hashing overloaded: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error: {}", ex.getMessage(), ex);
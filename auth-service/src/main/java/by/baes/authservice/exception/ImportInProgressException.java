@@ -0,0 +1,7 @@
+package by.baes.authservice.exception;
+
+public class ImportInProgressException extends RuntimeException {
+    public ImportInProgressException(String message) {
+        super(message);
+    }
+}
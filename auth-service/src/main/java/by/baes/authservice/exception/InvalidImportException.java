@@ -0,0 +1,7 @@
+package by.baes.authservice.exception;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
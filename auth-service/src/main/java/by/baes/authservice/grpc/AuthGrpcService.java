@@ -1,21 +1,41 @@
 package by.baes.authservice.grpc;
 
 import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.Revocation;
+import by.baes.auth.grpc.RevocationsRequest;
+import by.baes.auth.grpc.RevocationsResponse;
+import by.baes.auth.grpc.SigningKey;
+import by.baes.auth.grpc.SigningKeysRequest;
+import by.baes.auth.grpc.SigningKeysResponse;
+import by.baes.auth.grpc.TokenBatchRequest;
+import by.baes.auth.grpc.TokenBatchResponse;
 import by.baes.auth.grpc.TokenRequest;
+import by.baes.auth.grpc.TokenResult;
 import by.baes.auth.grpc.UserResponse;
+import by.baes.authservice.dto.TokenValidationResult;
 import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.exception.InvalidTokenException;
+import by.baes.authservice.exception.PasswordHashingUnavailableException;
+import by.baes.authservice.exception.UserNotFoundException;
+import by.baes.authservice.security.JwtKeyRing;
+import by.baes.authservice.security.RevocationStore;
 import by.baes.authservice.service.AuthService;
+import by.baes.authservice.service.TokenRevocationService;
+import com.google.protobuf.ByteString;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.dao.DataAccessException;
 
 @GrpcService
 @Slf4j
 @RequiredArgsConstructor
 public class AuthGrpcService extends AuthServiceGrpc.AuthServiceImplBase {
     private final AuthService authService;
+    private final JwtKeyRing keyRing;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public void validateToken(TokenRequest request, StreamObserver<UserResponse> responseObserver) {
@@ -23,21 +43,85 @@ public class AuthGrpcService extends AuthServiceGrpc.AuthServiceImplBase {
         try {
             UserDto userDto = authService.validateToken(request.getToken());
 
-            UserResponse response = UserResponse.newBuilder()
-                    .setId(userDto.getId())
-                    .setName(userDto.getName())
-                    .setEmail(userDto.getEmail() != null ? userDto.getEmail() : "")
-                    .setTelegramId(userDto.getTelegramId() != null ? userDto.getTelegramId() : "")
-                    .addAllRoles(userDto.getRoles())
-                    .build();
+            UserResponse response = toResponse(userDto);
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
             log.info("Token validated via gRPC for user: {}", userDto.getName());
         } catch (Exception e) {
             log.error("Error validating token via gRPC: {}", e.getMessage());
-            Status status = Status.INVALID_ARGUMENT.withDescription(e.getMessage());
-            responseObserver.onError(status.asRuntimeException());
+            responseObserver.onError(statusOf(e).withDescription(e.getMessage()).asRuntimeException());
         }
     }
+
+    @Override
+    public void validateTokens(TokenBatchRequest request, StreamObserver<TokenBatchResponse> responseObserver) {
+        log.debug("Received gRPC validateTokens request for {} tokens", request.getTokensCount());
+        try {
+            TokenBatchResponse.Builder response = TokenBatchResponse.newBuilder();
+            for (TokenValidationResult result : authService.validateTokens(request.getTokensList())) {
+                response.addResults(result.getUser() != null
+                        ? TokenResult.newBuilder().setUser(toResponse(result.getUser()))
+                        : TokenResult.newBuilder().setError(result.getError()));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error validating token batch via gRPC: {}", e.getMessage());
+            responseObserver.onError(statusOf(e).withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getSigningKeys(SigningKeysRequest request, StreamObserver<SigningKeysResponse> responseObserver) {
+        SigningKeysResponse.Builder response = SigningKeysResponse.newBuilder();
+        keyRing.getPublicKeys().forEach((keyId, publicKey) -> response.addKeys(SigningKey.newBuilder()
+                .setKeyId(keyId)
+                .setAlgorithm(keyRing.getAlgorithm().getValue())
+                .setPublicKey(ByteString.copyFrom(publicKey.getEncoded()))
+                .build()));
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+        log.debug("Published {} JWT signing keys via gRPC", response.getKeysCount());
+    }
+
+    @Override
+    public void getRevocations(RevocationsRequest request, StreamObserver<RevocationsResponse> responseObserver) {
+        try {
+            RevocationStore.RevocationPage page = tokenRevocationService.readAfter(request.getCursor());
+            RevocationsResponse.Builder response = RevocationsResponse.newBuilder().setCursor(page.cursor());
+            page.revocations().forEach(revocation -> response.addRevocations(Revocation.newBuilder()
+                    .setTokenId(revocation.tokenId())
+                    .setExpiresAt(revocation.expiresAt())));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+            log.debug("Published {} token revocations via gRPC", response.getRevocationsCount());
+        } catch (Exception e) {
+            log.error("Error reading token revocations via gRPC: {}", e.getMessage());
+            responseObserver.onError(Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    // INVALID_ARGUMENT — только про сам токен; сбои хранилищ и пулов шлюз должен засчитать в circuit breaker
+    private static Status statusOf(Exception e) {
+        if (e instanceof InvalidTokenException || e instanceof UserNotFoundException) {
+            return Status.INVALID_ARGUMENT;
+        }
+        if (e instanceof DataAccessException || e instanceof PasswordHashingUnavailableException) {
+            return Status.UNAVAILABLE;
+        }
+        return Status.INTERNAL;
+    }
+
+    private UserResponse toResponse(UserDto userDto) {
+        return UserResponse.newBuilder()
+                .setId(userDto.getId())
+                .setName(userDto.getName())
+                .setEmail(userDto.getEmail() != null ? userDto.getEmail() : "")
+                .setTelegramId(userDto.getTelegramId() != null ? userDto.getTelegramId() : "")
+                .addAllRoles(userDto.getRoles())
+                .setExpiresAt(userDto.getExpiresAt() != null ? userDto.getExpiresAt() : 0L)
+                .setTokenId(userDto.getTokenId() != null ? userDto.getTokenId() : "")
+                .build();
+    }
 }
\ No newline at end of file
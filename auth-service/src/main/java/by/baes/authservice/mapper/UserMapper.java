@@ -5,6 +5,7 @@ import by.baes.authservice.dto.UserDto;
 import by.baes.authservice.entity.Role;
 import by.baes.authservice.entity.User;
 import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserRow;
 import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,8 +18,19 @@ import java.util.stream.Collectors;
 public interface UserMapper {
 
     @Mapping(target = "roles", expression = "java(user.getRoles().stream().map(Role::getName).collect(Collectors.toSet()))")
+    @Mapping(target = "expiresAt", ignore = true)
+    @Mapping(target = "tokenId", ignore = true)
     UserDto toDto(User user);
 
+    @Mapping(target = "expiresAt", ignore = true)
+    @Mapping(target = "tokenId", ignore = true)
+    UserDto toDto(UserRow row, Set<String> roles);
+
+    // Копия закэшированной проекции с временем истечения и jti конкретного токена
+    @Mapping(target = "expiresAt", source = "expiresAt")
+    @Mapping(target = "tokenId", source = "tokenId")
+    UserDto withToken(UserDto projection, Long expiresAt, String tokenId);
+
     @Mapping(target = "password", expression = "java(passwordEncoder.encode(request.getPassword()))")
     @Mapping(target = "roles", expression = "java(mapRoles(request.getRoles(), roleRepository))")
     User toEntity(RegisterRequest request,
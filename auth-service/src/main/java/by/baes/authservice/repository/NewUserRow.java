@@ -0,0 +1,7 @@
+package by.baes.authservice.repository;
+
+import java.util.Set;
+
+// Пользователь для пакетной вставки: id уже выделен из последовательности, пароль захеширован
+public record NewUserRow(long id, String name, String email, String passwordHash, String telegramId, Set<Long> roleIds) {
+}
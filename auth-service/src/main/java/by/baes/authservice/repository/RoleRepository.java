@@ -1,12 +1,28 @@
 package by.baes.authservice.repository;
 
 import by.baes.authservice.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+// Запросы по ролям идут через кэш запросов Hibernate в своём регионе; сами роли — в регионе второго уровня
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Role.QUERY_CACHE_REGION)
+    })
     Optional<Role> findByName(String name);
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Role.QUERY_CACHE_REGION)
+    })
+    List<Role> findAll();
 }
@@ -0,0 +1,65 @@
+package by.baes.authservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Пакетные операции над users и user_roles через JDBC, в обход JPA: IDENTITY-генерация id в Hibernate
+ * отключает пакетную вставку. Id берутся заранее из последовательности столбца users.id одним запросом,
+ * вставки идут пакетами (с reWriteBatchedInserts драйвер собирает их в многострочные INSERT).
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserBulkRepository {
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, name, email, password, telegram_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public Set<String> findExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT name FROM users WHERE name IN (:names)", new MapSqlParameterSource("names", names), String.class));
+    }
+
+    // Та же последовательность, из которой берёт id вставка через JPA, поэтому пересечений нет
+    public List<Long> allocateIds(int count) {
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('users', 'id')) FROM generate_series(1, ?)", Long.class, count);
+    }
+
+    @Transactional
+    public void insert(List<NewUserRow> users) {
+        jdbcTemplate.batchUpdate(INSERT_USER, users, users.size(), (ps, user) -> {
+            ps.setLong(1, user.id());
+            ps.setString(2, user.name());
+            ps.setString(3, user.email());
+            ps.setString(4, user.passwordHash());
+            ps.setString(5, user.telegramId());
+        });
+        List<long[]> userRoles = new ArrayList<>();
+        users.forEach(user -> user.roleIds().forEach(roleId -> userRoles.add(new long[]{user.id(), roleId})));
+        if (userRoles.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles, userRoles.size(), (ps, userRole) -> {
+            ps.setLong(1, userRole[0]);
+            ps.setLong(2, userRole[1]);
+        });
+    }
+}
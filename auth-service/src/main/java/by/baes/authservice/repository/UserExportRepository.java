@@ -0,0 +1,93 @@
+package by.baes.authservice.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Чтение всех пользователей с ролями одним запросом через серверный курсор: драйвер держит в памяти
+ * не больше fetch-size строк. PostgreSQL открывает курсор только вне autocommit, поэтому вызывать внутри транзакции.
+ */
+@Repository
+public class UserExportRepository {
+
+    private static final String SELECT_USERS = """
+            SELECT u.id, u.name, u.email, u.telegram_id, r.name AS role_name
+            FROM users u
+            LEFT JOIN user_roles ur ON ur.user_id = u.id
+            LEFT JOIN roles r ON r.id = ur.role_id
+            """;
+    private static final String ROLE_FILTER = """
+            WHERE u.id IN (SELECT fur.user_id FROM user_roles fur JOIN roles fr ON fr.id = fur.role_id
+                           WHERE fr.name IN (:roles))
+            """;
+    private static final String ORDER = "ORDER BY u.id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Свой JdbcTemplate: fetch size общего шаблона менять нельзя
+    public UserExportRepository(DataSource dataSource, @Value("${auth.export.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    // Пользователи по возрастанию id, consumer вызывается один раз на пользователя; возвращает их число
+    public long forEachUser(Collection<String> roleNames, BiConsumer<UserRow, Set<String>> consumer) {
+        boolean filtered = roleNames != null && !roleNames.isEmpty();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (filtered) {
+            params.addValue("roles", roleNames);
+        }
+        UserCollector collector = new UserCollector(consumer);
+        jdbcTemplate.query(SELECT_USERS + (filtered ? ROLE_FILTER : "") + ORDER, params, collector);
+        collector.complete();
+        return collector.count;
+    }
+
+    // Строки одного пользователя идут подряд (ORDER BY id), по одной на роль
+    private static final class UserCollector implements RowCallbackHandler {
+
+        private final BiConsumer<UserRow, Set<String>> consumer;
+        private UserRow current;
+        private Set<String> roles;
+        private long count;
+
+        UserCollector(BiConsumer<UserRow, Set<String>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || current.id() != id) {
+                complete();
+                current = new UserRow(id, rs.getString("name"), rs.getString("email"), rs.getString("telegram_id"));
+                roles = new LinkedHashSet<>();
+            }
+            String role = rs.getString("role_name");
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+
+        void complete() {
+            if (current != null) {
+                consumer.accept(current, roles);
+                count++;
+                current = null;
+            }
+        }
+    }
+}
@@ -1,20 +1,46 @@
 package by.baes.authservice.repository;
 
 import by.baes.authservice.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+// Объявленные здесь запросы сами по себе идут без транзакции, то есть мимо реплик;
+// методы JpaRepository сохраняют транзакции SimpleJpaRepository, save — read-write
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByName(String name);
+    List<User> findByNameIn(Collection<String> names);
     boolean existsByName(String name);
 
-    @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name IN :roleNames")
-    Page<User> findByRolesIn(List<String> roleNames, Pageable pageable);
+    // Списки пользователей читаются строками без управляемых сущностей, роли — отдельно через findRoleNames
+    @Query("SELECT new by.baes.authservice.repository.UserRow(u.id, u.name, u.email, u.telegramId) FROM User u")
+    Page<UserRow> findRows(Pageable pageable);
+
+    // Подзапрос вместо JOIN: пользователь с несколькими подходящими ролями попадает в страницу один раз
+    @Query(value = "SELECT new by.baes.authservice.repository.UserRow(u.id, u.name, u.email, u.telegramId) FROM User u "
+            + "WHERE u.id IN (SELECT ur.id FROM User ur JOIN ur.roles r WHERE r.name IN :roleNames)",
+            countQuery = "SELECT count(u) FROM User u "
+                    + "WHERE u.id IN (SELECT ur.id FROM User ur JOIN ur.roles r WHERE r.name IN :roleNames)")
+    Page<UserRow> findRowsByRoleNames(Collection<String> roleNames, Pageable pageable);
+
+    // Keyset-пагинация: условие по ключам сортировки вместо OFFSET, без запроса COUNT
+    Window<UserRow> findRowsBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<UserRow> findDistinctRowsByRoles_NameIn(Collection<String> roleNames, ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT new by.baes.authservice.repository.UserRoleRow(u.id, r.name) FROM User u JOIN u.roles r WHERE u.id IN :userIds")
+    List<UserRoleRow> findRoleNames(Collection<Long> userIds);
 }
\ No newline at end of file
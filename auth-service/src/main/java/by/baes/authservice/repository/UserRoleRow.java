@@ -0,0 +1,4 @@
+package by.baes.authservice.repository;
+
+public record UserRoleRow(Long userId, String roleName) {
+}
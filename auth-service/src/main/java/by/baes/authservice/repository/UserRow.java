@@ -0,0 +1,5 @@
+package by.baes.authservice.repository;
+
+// Строка пользователя без ролей и пароля для списков; роли догружаются одним запросом на страницу
+public record UserRow(Long id, String name, String email, String telegramId) {
+}
@@ -0,0 +1,52 @@
+package by.baes.authservice.security;
+
+import by.baes.identity.Identity;
+import by.baes.identity.IdentityHeader;
+import by.baes.identity.IdentityVerifier;
+import by.baes.identity.InvalidIdentityException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Аутентифицирует запрос по заголовку X-Identity от gateway без обращения к JWT и базе.
+ * Роли пользователя становятся authorities вида ROLE_*.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class IdentityAuthenticationFilter extends OncePerRequestFilter {
+
+    private final IdentityVerifier identityVerifier;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(IdentityHeader.NAME);
+        if (header != null) {
+            Identity identity;
+            try {
+                identity = identityVerifier.verify(header);
+            } catch (InvalidIdentityException e) {
+                log.warn("Rejected identity header: {}", e.getMessage());
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid identity header");
+                return;
+            }
+            List<SimpleGrantedAuthority> authorities = identity.roles().stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                    .toList();
+            SecurityContextHolder.getContext()
+                    .setAuthentication(new UsernamePasswordAuthenticationToken(identity, null, authorities));
+        }
+        chain.doFilter(request, response);
+    }
+}
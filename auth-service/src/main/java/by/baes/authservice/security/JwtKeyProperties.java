@@ -0,0 +1,34 @@
+package by.baes.authservice.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtKeyProperties {
+
+    // HS512 — прежний формат с общим секретом, RS256/RS384/RS512 и ES256/ES384/ES512 — подпись ключами из keys
+    private SignatureAlgorithm algorithm = SignatureAlgorithm.HS512;
+
+    private String activeKeyId;
+
+    // Только для разработки: без keys генерировать временный ключ. Токены не переживают перезапуск,
+    // а у каждого экземпляра свой ключ
+    private boolean ephemeralKey;
+
+    // Ключи без private-key используются только для проверки ранее выданных токенов
+    private List<Key> keys = new ArrayList<>();
+
+    @Data
+    public static class Key {
+        private String id;
+        private String privateKey; // PKCS#8, Base64
+        private String publicKey;  // X.509, Base64
+    }
+}
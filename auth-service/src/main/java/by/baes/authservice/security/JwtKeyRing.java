@@ -0,0 +1,120 @@
+package by.baes.authservice.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Набор асимметричных ключей подписи JWT (RSA или EC). Активный ключ подписывает новые токены,
+ * остальные публичные ключи остаются доступны для проверки до истечения выданных ими токенов.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    @Getter
+    private final SignatureAlgorithm algorithm;
+    @Getter
+    private final String activeKeyId;
+    private final PrivateKey activePrivateKey;
+    private final Map<String, PublicKey> publicKeys;
+
+    public JwtKeyRing(JwtKeyProperties properties) {
+        this.algorithm = properties.getAlgorithm();
+        if (algorithm.isHmac()) {
+            this.activeKeyId = null;
+            this.activePrivateKey = null;
+            this.publicKeys = Map.of();
+            log.warn("JWT tokens are signed with shared secret ({}), gateway cannot verify them locally", algorithm);
+            return;
+        }
+        if (!algorithm.isRsa() && !algorithm.isEllipticCurve()) {
+            throw new IllegalStateException("Unsupported JWT signing algorithm: " + algorithm);
+        }
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        PrivateKey privateKey = null;
+        String keyId = properties.getActiveKeyId();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm(algorithm));
+            for (JwtKeyProperties.Key key : properties.getKeys()) {
+                keys.put(key.getId(), keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey()))));
+                if (key.getId().equals(keyId) && key.getPrivateKey() != null) {
+                    privateKey = keyFactory.generatePrivate(
+                            new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.getPrivateKey())));
+                }
+            }
+            if (keys.isEmpty()) {
+                if (!properties.isEphemeralKey()) {
+                    throw new IllegalStateException("No JWT signing keys configured for " + algorithm
+                            + ": set jwt.keys and jwt.active-key-id, or jwt.ephemeral-key=true for local development");
+                }
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm(algorithm));
+                if (algorithm.isRsa()) {
+                    generator.initialize(2048);
+                } else {
+                    generator.initialize(new ECGenParameterSpec(curve(algorithm)));
+                }
+                KeyPair keyPair = generator.generateKeyPair();
+                keyId = UUID.randomUUID().toString();
+                keys.put(keyId, keyPair.getPublic());
+                privateKey = keyPair.getPrivate();
+                log.warn("Generated ephemeral JWT signing key {}: tokens will not survive a restart or work across instances", keyId);
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to load JWT signing keys: " + e.getMessage(), e);
+        }
+        if (privateKey == null) {
+            throw new IllegalStateException("Private key for active JWT key not configured: " + keyId);
+        }
+
+        this.activeKeyId = keyId;
+        this.activePrivateKey = privateKey;
+        this.publicKeys = Collections.unmodifiableMap(keys);
+        log.info("Loaded {} JWT signing keys, active key: {}", keys.size(), keyId);
+    }
+
+    public PrivateKey getActivePrivateKey() {
+        return activePrivateKey;
+    }
+
+    public Optional<PublicKey> getPublicKey(String keyId) {
+        return Optional.ofNullable(keyId).map(publicKeys::get);
+    }
+
+    public Map<String, PublicKey> getPublicKeys() {
+        return publicKeys;
+    }
+
+    // Имя алгоритма ключа для JCA (KeyFactory, KeyPairGenerator)
+    static String keyAlgorithm(SignatureAlgorithm algorithm) {
+        return algorithm.isRsa() ? "RSA" : "EC";
+    }
+
+    private static String curve(SignatureAlgorithm algorithm) {
+        return switch (algorithm) {
+            case ES256 -> "secp256r1";
+            case ES384 -> "secp384r1";
+            case ES512 -> "secp521r1";
+            default -> throw new IllegalStateException("No curve for JWT signing algorithm: " + algorithm);
+        };
+    }
+}
@@ -4,44 +4,90 @@ import by.baes.authservice.entity.Role;
 import by.baes.authservice.entity.User;
 import by.baes.authservice.exception.InvalidTokenException;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
-
+/**
+ * Выпуск и проверка JWT. Ключи и парсер собираются один раз при создании и дальше только читаются,
+ * поэтому экземпляр безопасно использовать из любых потоков.
+ */
 @Component
 @Slf4j
 public class JwtUtil {
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final List<SignatureAlgorithm> HMAC_ALGORITHMS =
+            List.of(SignatureAlgorithm.HS256, SignatureAlgorithm.HS384, SignatureAlgorithm.HS512);
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final JwtKeyRing keyRing;
+    private final long expiration;
+    // Ключи общего секрета по алгоритму: прежние токены могут быть подписаны любым HS*
+    private final Map<SignatureAlgorithm, Key> hmacKeys;
+    private final Key signingKey;
+    // Парсер jjwt не меняет состояние при разборе; он не отдаётся наружу и не перенастраивается
+    private final JwtParser parser;
+
+    public JwtUtil(JwtKeyRing keyRing,
+                   @Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration) {
+        this.keyRing = keyRing;
+        this.expiration = expiration;
+        byte[] secretBytes = TextCodec.BASE64.decode(secret);
+        Map<SignatureAlgorithm, Key> keys = new EnumMap<>(SignatureAlgorithm.class);
+        for (SignatureAlgorithm algorithm : HMAC_ALGORITHMS) {
+            keys.put(algorithm, new SecretKeySpec(secretBytes, algorithm.getJcaName()));
+        }
+        this.hmacKeys = Collections.unmodifiableMap(keys);
+        this.signingKey = keyRing.getAlgorithm().isHmac()
+                ? hmacKeys.get(keyRing.getAlgorithm())
+                : keyRing.getActivePrivateKey();
+        this.parser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            // Ключ выбирается по алгоритму и kid из заголовка токена
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                SignatureAlgorithm algorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+                if (algorithm.isHmac()) {
+                    return hmacKeys.get(algorithm);
+                }
+                return keyRing.getPublicKey(header.getKeyId())
+                        .orElseThrow(() -> new InvalidTokenException("Unknown signing key: " + header.getKeyId()));
+            }
+        });
+    }
 
     public String generateToken(User user) {
         log.debug("Generating token for user: {}", user.getName());
-        String token = Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(user.getName())
+                .claim("id", user.getId())
+                .claim("email", user.getEmail())
                 .claim("roles", user.getRoles().stream()
                         .map(Role::getName)
                         .collect(Collectors.toList()))
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (!keyRing.getAlgorithm().isHmac()) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId());
+        }
+        String token = builder.signWith(keyRing.getAlgorithm(), signingKey).compact();
         log.debug("Token generated for user: {}", user.getName());
         return token;
     }
 
     public Claims validateToken(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             throw new InvalidTokenException("Invalid JWT token: " + e.getMessage());
         }
@@ -50,4 +96,4 @@ public class JwtUtil {
     public long getExpiration() {
         return expiration;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package by.baes.authservice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отзывы в Redis: ключ на каждый jti с TTL до истечения токена и stream-журнал для синхронизации.
+ * Из журнала при добавлении удаляются записи старше максимального срока жизни токена — их токены уже истекли.
+ */
+@Component
+public class RedisRevocationStore implements RevocationStore {
+
+    private static final String TOKEN_ID = "jti";
+    private static final String EXPIRES_AT = "exp";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final String journal;
+    private final long maxTokenLifetimeMillis;
+
+    public RedisRevocationStore(StringRedisTemplate redisTemplate,
+                                @Value("${auth.revocation.key-prefix:auth:revoked:}") String keyPrefix,
+                                @Value("${auth.revocation.journal:auth:revocations}") String journal,
+                                @Value("${jwt.expiration}") long maxTokenLifetimeMillis) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.journal = journal;
+        this.maxTokenLifetimeMillis = maxTokenLifetimeMillis;
+    }
+
+    @Override
+    public void revoke(String tokenId, long expiresAt) {
+        long ttlMillis = expiresAt - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        redisTemplate.opsForValue().set(keyPrefix + tokenId, "1", Duration.ofMillis(ttlMillis));
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        ByteRecord record = StreamRecords.rawBytes(Map.of(
+                        serializer.serialize(TOKEN_ID), serializer.serialize(tokenId),
+                        serializer.serialize(EXPIRES_AT), serializer.serialize(Long.toString(expiresAt))))
+                .withStreamKey(serializer.serialize(journal));
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions.none()
+                .minId(RecordId.of(System.currentTimeMillis() - maxTokenLifetimeMillis, 0))
+                .approximateTrimming(true);
+        redisTemplate.execute((RedisCallback<RecordId>) connection -> connection.streamCommands().xAdd(record, options));
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(keyPrefix + tokenId));
+    }
+
+    @Override
+    public RevocationPage readAfter(String cursor, int limit) {
+        Range<String> range = cursor == null || cursor.isEmpty()
+                ? Range.unbounded()
+                : Range.rightUnbounded(Range.Bound.exclusive(cursor));
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .range(journal, range, Limit.limit().count(limit));
+        if (records == null || records.isEmpty()) {
+            return new RevocationPage(List.of(), cursor == null ? "" : cursor);
+        }
+        List<Revocation> revocations = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> fields = record.getValue();
+            revocations.add(new Revocation((String) fields.get(TOKEN_ID), Long.parseLong((String) fields.get(EXPIRES_AT))));
+        }
+        return new RevocationPage(revocations, records.get(records.size() - 1).getId().getValue());
+    }
+}
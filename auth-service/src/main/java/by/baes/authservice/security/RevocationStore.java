@@ -0,0 +1,24 @@
+package by.baes.authservice.security;
+
+import java.util.List;
+
+/**
+ * Общее хранилище отозванных токенов по jti и журнал отзывов, по которому узлы догоняют свои фильтры.
+ */
+public interface RevocationStore {
+
+    // Запись живёт до истечения токена
+    void revoke(String tokenId, long expiresAt);
+
+    boolean isRevoked(String tokenId);
+
+    // Отзывы после курсора в порядке добавления, не больше limit; пустой курсор — с начала журнала
+    RevocationPage readAfter(String cursor, int limit);
+
+    record Revocation(String tokenId, long expiresAt) {
+    }
+
+    // cursor — позиция последней прочитанной записи, передаётся в следующий readAfter
+    record RevocationPage(List<Revocation> revocations, String cursor) {
+    }
+}
@@ -1,8 +1,11 @@
 package by.baes.authservice.service;
 
+import by.baes.authservice.datasource.ReadAfterWrite;
 import by.baes.authservice.dto.LoginRequest;
 import by.baes.authservice.dto.RegisterRequest;
+import by.baes.authservice.dto.TokenValidationResult;
 import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.dto.UserSlice;
 import by.baes.authservice.entity.Role;
 import by.baes.authservice.entity.User;
 import by.baes.authservice.exception.*;
@@ -13,16 +16,21 @@ import by.baes.authservice.security.JwtUtil;
 import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,10 +42,14 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final UserMapper userMapper;
+    private final UserProjectionService userProjectionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserListingService userListingService;
+    private final ReadAfterWrite readAfterWrite;
 
     public String login(LoginRequest request) {
         log.debug("Login attempt for user: {}", request.getName());
-        User user = userRepository.findByName(request.getName())
+        User user = readAfterWrite.find(request.getName(), () -> userRepository.findByName(request.getName()))
                 .orElseThrow(() -> {
                     log.error("User not found: {}", request.getName());
                     return new UserNotFoundException("User not found: " + request.getName());
@@ -55,7 +67,8 @@ public class AuthService {
 
     public String register(RegisterRequest request) {
         log.debug("Register attempt for user: {}", request.getName());
-        if (userRepository.existsByName(request.getName())) {
+        // Проверка перед записью — по основной БД, реплика может не видеть недавних регистраций
+        if (readAfterWrite.onPrimary(() -> userRepository.existsByName(request.getName()))) {
             log.warn("Username already exists: {}", request.getName());
             throw new UserAlreadyExistsException("Username already exists: " + request.getName());
         }
@@ -63,12 +76,13 @@ public class AuthService {
         User user = userMapper.toEntity(request, passwordEncoder, roleRepository);
 
         userRepository.save(user);
+        readAfterWrite.written(user.getName());
+        userProjectionService.evict(user.getName());
         String token = jwtUtil.generateToken(user);
         log.info("User registered successfully: {}, token generated", request.getName());
         return token;
     }
 
-    @Cacheable(value = "userDtos", key = "#token")
     public UserDto validateToken(String token) {
         log.debug("Validating token: {}", token);
         Claims claims;
@@ -78,26 +92,79 @@ public class AuthService {
             log.error("Invalid token: {}", e.getMessage());
             throw new InvalidTokenException("Invalid JWT token: " + e.getMessage());
         }
-        User user = userRepository.findByName(claims.getSubject())
-                .orElseThrow(() -> {
-                    log.error("User not found for token subject: {}", claims.getSubject());
-                    return new UserNotFoundException("User not found: " + claims.getSubject());
-                });
-        UserDto userDto = userMapper.toDto(user);
+        if (isRevoked(claims)) {
+            log.warn("Revoked token presented for user: {}", claims.getSubject());
+            throw new InvalidTokenException("Token has been revoked");
+        }
+        // Проверка подписи локальная, пользователь — из кэша проекций
+        UserDto projection = userProjectionService.getByName(claims.getSubject());
+        UserDto userDto = userMapper.withToken(projection, claims.getExpiration().getTime(), claims.getId());
         log.info("Token validated for user: {}", claims.getSubject());
         return userDto;
     }
 
-    @CacheEvict(value = "userDtos", key = "#token")
+    // Пакетная проверка: подписи локально, проекции всех пользователей пакета одним обращением
+    public List<TokenValidationResult> validateTokens(List<String> tokens) {
+        log.debug("Validating batch of {} tokens", tokens.size());
+        Map<String, TokenValidationResult> results = new HashMap<>();
+        Map<String, Claims> verified = new LinkedHashMap<>();
+        for (String token : new LinkedHashSet<>(tokens)) {
+            Claims claims;
+            try {
+                claims = jwtUtil.validateToken(token);
+            } catch (Exception e) {
+                log.error("Invalid token: {}", e.getMessage());
+                results.put(token, TokenValidationResult.failure("Invalid JWT token: " + e.getMessage()));
+                continue;
+            }
+            if (isRevoked(claims)) {
+                log.warn("Revoked token presented for user: {}", claims.getSubject());
+                results.put(token, TokenValidationResult.failure("Token has been revoked"));
+            } else {
+                verified.put(token, claims);
+            }
+        }
+
+        if (!verified.isEmpty()) {
+            Set<String> names = verified.values().stream()
+                    .map(Claims::getSubject)
+                    .collect(Collectors.toSet());
+            Map<String, UserDto> projections = userProjectionService.getByNames(names);
+            verified.forEach((token, claims) -> {
+                UserDto projection = projections.get(claims.getSubject());
+                if (projection == null) {
+                    log.error("User not found for token subject: {}", claims.getSubject());
+                    results.put(token, TokenValidationResult.failure("User not found: " + claims.getSubject()));
+                    return;
+                }
+                results.put(token, TokenValidationResult.success(
+                        userMapper.withToken(projection, claims.getExpiration().getTime(), claims.getId())));
+            });
+        }
+        log.info("Validated batch of {} tokens for {} users", tokens.size(), verified.size());
+        return tokens.stream().map(results::get).collect(Collectors.toList());
+    }
+
     public void logout(String token) {
         log.debug("Logout attempt for token");
+        Claims claims;
         try {
-            jwtUtil.validateToken(token);
-            log.info("Logout successful for token");
+            claims = jwtUtil.validateToken(token);
         } catch (Exception e) {
             log.error("Invalid token during logout: {}", e.getMessage());
             throw new InvalidTokenException("Invalid JWT token during logout: " + e.getMessage());
         }
+        // Токены, выпущенные до появления jti, отозвать нельзя — они доживают до истечения
+        if (claims.getId() == null) {
+            log.warn("Token of user {} has no jti and cannot be revoked", claims.getSubject());
+            return;
+        }
+        tokenRevocationService.revoke(claims.getId(), claims.getExpiration().getTime());
+        log.info("Logout successful for user: {}", claims.getSubject());
+    }
+
+    private boolean isRevoked(Claims claims) {
+        return claims.getId() != null && tokenRevocationService.isRevoked(claims.getId());
     }
 
     public List<String> getAllRoles() {
@@ -115,16 +182,30 @@ public class AuthService {
         Sort.Direction direction = sort.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "name"));
 
-        Page<UserDto> users = (roles != null && !roles.isEmpty())
-                ? userRepository.findByRolesIn(roles, pageable).map(userMapper::toDto)
-                : userRepository.findAll(pageable).map(userMapper::toDto);
+        Page<UserDto> users = userListingService.findPage(roles, pageable);
         log.info("Retrieved {} users", users.getTotalElements());
         return users;
     }
 
+    // Постранично по (name, id) от курсора: глубина страницы не влияет на стоимость запроса, COUNT не выполняется
+    public UserSlice scrollUsers(String cursor, int size, String sort, List<String> roles) {
+        log.debug("Scrolling users with cursor: {}, size: {}, sort: {}, roles: {}", cursor, size, sort, roles);
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        Sort.Direction direction = sort.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        ScrollPosition position = UserCursor.decode(cursor);
+        Window<UserDto> users = userListingService.scroll(roles, position, Sort.by(direction, "name", "id"), size);
+        String nextCursor = users.hasNext() && !users.isEmpty()
+                ? UserCursor.encode(users.positionAt(users.size() - 1))
+                : null;
+        log.info("Retrieved {} users, has next: {}", users.size(), users.hasNext());
+        return new UserSlice(users.getContent(), nextCursor, users.hasNext());
+    }
+
     public UserDto getUserById(Long id) {
         log.debug("Fetching user by id: {}", id);
-        User user = userRepository.findById(id)
+        User user = readAfterWrite.find(() -> userRepository.findById(id))
                 .orElseThrow(() -> {
                     log.error("User not found with id: {}", id);
                     return new UserNotFoundException("User not found with id: " + id);
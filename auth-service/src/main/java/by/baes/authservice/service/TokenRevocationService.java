@@ -0,0 +1,163 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.security.RevocationStore;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отзыв токенов по jti. Каждый узел держит Bloom-фильтр отозванных jti: отрицательный ответ фильтра
+ * (обычный случай) не требует обращения к Redis, положительный проверяется по хранилищу.
+ * Фильтр догоняет журнал отзывов раз в sync-interval и пересобирается раз в rebuild-interval,
+ * чтобы выбросить истёкшие токены.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    public static final int PAGE_SIZE = 1000;
+
+    private final RevocationStore store;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration syncInterval;
+    private final long rebuildIntervalNanos;
+    private final Counter filterNegatives;
+    private final Counter storeChecks;
+    private final Counter revokedHits;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("revocation-sync-"));
+    // null до первой загрузки журнала: тогда каждая проверка идёт в хранилище
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile long capacity;
+    private volatile String cursor = "";
+    private volatile long rebuiltAtNanos;
+
+    public TokenRevocationService(RevocationStore store,
+                                  @Value("${auth.revocation.bloom.expected-insertions:100000}") int expectedInsertions,
+                                  @Value("${auth.revocation.bloom.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${auth.revocation.sync-interval:1s}") Duration syncInterval,
+                                  @Value("${auth.revocation.rebuild-interval:1h}") Duration rebuildInterval,
+                                  MeterRegistry meterRegistry) {
+        this.store = store;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncInterval = syncInterval;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+        this.filterNegatives = checkCounter(meterRegistry, "filter");
+        this.storeChecks = checkCounter(meterRegistry, "store");
+        this.revokedHits = Counter.builder("auth.revocation.revoked")
+                .description("Validations rejected because the token was revoked")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.filter.size", this,
+                        service -> service.filter != null ? service.filter.approximateElementCount() : 0)
+                .description("Approximate number of token ids in the revocation Bloom filter")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sync, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void revoke(String tokenId, long expiresAt) {
+        store.revoke(tokenId, expiresAt);
+        BloomFilter<CharSequence> current = filter;
+        if (current != null) {
+            current.put(tokenId);
+        }
+        log.info("Token {} revoked", tokenId);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        BloomFilter<CharSequence> current = filter;
+        if (current != null && !current.mightContain(tokenId)) {
+            filterNegatives.increment();
+            return false;
+        }
+        storeChecks.increment();
+        boolean revoked = store.isRevoked(tokenId);
+        if (revoked) {
+            revokedHits.increment();
+        }
+        return revoked;
+    }
+
+    // Для узлов вне auth-service (gateway), которые держат свой фильтр
+    public RevocationStore.RevocationPage readAfter(String cursor) {
+        return store.readAfter(cursor, PAGE_SIZE);
+    }
+
+    void sync() {
+        try {
+            BloomFilter<CharSequence> current = filter;
+            long count = current != null ? current.approximateElementCount() : 0;
+            if (current == null
+                    || System.nanoTime() - rebuiltAtNanos >= rebuildIntervalNanos
+                    || count > capacity) {
+                rebuild(count);
+                return;
+            }
+            cursor = load(current, cursor);
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync token revocations: {}", e.getMessage());
+        }
+    }
+
+    // Новый фильтр из действующих отзывов журнала; старый работает, пока новый не готов.
+    // Ёмкость с запасом от наблюдаемого числа отзывов, иначе переполненный фильтр пересобирался бы на каждой синхронизации
+    private void rebuild(long observed) {
+        long rebuiltCapacity = Math.max(expectedInsertions, 2 * observed);
+        BloomFilter<CharSequence> rebuilt = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8), rebuiltCapacity, falsePositiveRate);
+        String rebuiltCursor = load(rebuilt, "");
+        capacity = rebuiltCapacity;
+        filter = rebuilt;
+        cursor = rebuiltCursor;
+        rebuiltAtNanos = System.nanoTime();
+        log.debug("Revocation filter rebuilt with ~{} token ids", rebuilt.approximateElementCount());
+    }
+
+    private String load(BloomFilter<CharSequence> target, String from) {
+        long now = System.currentTimeMillis();
+        String position = from;
+        while (true) {
+            RevocationStore.RevocationPage page = store.readAfter(position, PAGE_SIZE);
+            for (RevocationStore.Revocation revocation : page.revocations()) {
+                if (revocation.expiresAt() > now) {
+                    target.put(revocation.tokenId());
+                }
+            }
+            position = page.cursor();
+            if (page.revocations().size() < PAGE_SIZE) {
+                return position;
+            }
+        }
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String resolvedBy) {
+        return Counter.builder("auth.revocation.checks")
+                .description("Revocation checks by where they were answered")
+                .tag("resolved", resolvedBy)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,46 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.exception.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Непрозрачный курсор keyset-пагинации пользователей: позиция (name, id) последней отданной записи.
+ * Формат "id:name" в base64url; клиенты не должны на него опираться.
+ */
+final class UserCursor {
+
+    private UserCursor() {
+    }
+
+    static String encode(ScrollPosition position) {
+        Map<String, ?> keys = ((KeysetScrollPosition) position).getKeys();
+        String value = keys.get("id") + ":" + keys.get("name");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Пустой курсор — первая страница
+    static ScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            if (separator <= 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("name", value.substring(separator + 1));
+            keys.put("id", Long.parseLong(value.substring(0, separator)));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
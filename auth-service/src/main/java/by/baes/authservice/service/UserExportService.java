@@ -0,0 +1,71 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.repository.UserExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выгрузка пользователей в NDJSON: строки из курсора БД сразу пишутся в поток ответа,
+ * в памяти только текущий пользователь и буферы драйвера и генератора.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    private final UserExportRepository userExportRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter userWriter;
+
+    public UserExportService(UserExportRepository userExportRepository, ObjectMapper objectMapper) {
+        this.userExportRepository = userExportRepository;
+        this.objectMapper = objectMapper;
+        // Сброс в сокет по заполнению буферов, а не после каждого пользователя
+        this.userWriter = objectMapper.writerFor(UserDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Транзакция нужна курсору PostgreSQL; поток не закрывается — это делает вызывающий
+    @Transactional(readOnly = true)
+    public long export(Collection<String> roles, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Вместо пробела между корневыми значениями — перевод строки после каждого
+        generator.setRootValueSeparator(null);
+        UserDto userDto = new UserDto();
+        long count;
+        try {
+            count = userExportRepository.forEachUser(roles, (row, userRoles) -> {
+                userDto.setId(row.id());
+                userDto.setName(row.name());
+                userDto.setEmail(row.email());
+                userDto.setTelegramId(row.telegramId());
+                userDto.setRoles(userRoles);
+                try {
+                    userWriter.writeValue(generator, userDto);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Обычно клиент закрыл соединение; запрос к БД прерывается вместе с выгрузкой
+            throw e.getCause();
+        }
+        generator.close();
+        log.info("Exported {} users (roles: {}) in {} ms", count, roles,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return count;
+    }
+}
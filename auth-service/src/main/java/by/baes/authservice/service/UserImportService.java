@@ -0,0 +1,318 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.ImportResult;
+import by.baes.authservice.dto.ImportRowResult;
+import by.baes.authservice.dto.ImportUserRequest;
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.exception.ImportInProgressException;
+import by.baes.authservice.exception.InvalidImportException;
+import by.baes.authservice.repository.NewUserRow;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserBulkRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт пользователей из CSV или NDJSON, читаемых потоком.
+ * Строки обрабатываются пачками: одна проверка занятых имён на пачку, BCrypt параллельно на своём
+ * ограниченном пуле, пакетная вставка через JDBC. Одновременно выполняется один импорт.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2([aby])?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+    private static final Set<String> CSV_COLUMNS = Set.of("name", "email", "password", "passwordHash", "telegramId", "roles");
+    private static final String DEFAULT_ROLE = "USER";
+
+    private final UserBulkRepository userBulkRepository;
+    private final RoleRepository roleRepository;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+    private final int chunkSize;
+    private final ThreadPoolExecutor hashExecutor;
+    private final Semaphore importPermit = new Semaphore(1);
+    private final Map<ImportRowResult.Status, Counter> rowCounters = new EnumMap<>(ImportRowResult.Status.class);
+
+    public UserImportService(UserBulkRepository userBulkRepository,
+                             RoleRepository roleRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.password.bcrypt-strength:10}") int strength,
+                             @Value("${auth.import.chunk-size:1000}") int chunkSize,
+                             @Value("${auth.import.hash-pool-size:0}") int hashPoolSize,
+                             MeterRegistry meterRegistry) {
+        this.userBulkRepository = userBulkRepository;
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+        this.jsonReader = objectMapper.readerFor(ImportUserRequest.class);
+        // Колонки берутся из заголовка; роли внутри ячейки разделяются ';'
+        this.csvReader = new CsvMapper().readerFor(ImportUserRequest.class)
+                .with(CsvSchema.emptySchema().withHeader().withArrayElementSeparator(";"))
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+        this.chunkSize = chunkSize;
+        // По умолчанию половина ядер: вторая остаётся логинам и их пулу BCrypt
+        int threads = hashPoolSize > 0 ? hashPoolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(chunkSize), new CustomizableThreadFactory("import-hash-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, hashExecutor, "import-hash");
+        for (ImportRowResult.Status status : ImportRowResult.Status.values()) {
+            rowCounters.put(status, Counter.builder("auth.import.rows")
+                    .description("Rows processed by bulk user import")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+
+    public ImportResult importUsers(InputStream body, Format format) throws IOException {
+        if (!importPermit.tryAcquire()) {
+            throw new ImportInProgressException("Another user import is in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            List<ImportRowResult> results = new ArrayList<>();
+            new Import(results).run(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), format);
+            results.forEach(result -> rowCounters.get(result.getStatus()).increment());
+            int created = (int) results.stream().filter(r -> r.getStatus() == ImportRowResult.Status.CREATED).count();
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Imported {} of {} users in {} ms", created, results.size(), durationMillis);
+            return new ImportResult(results.size(), created, results.size() - created, durationMillis, results);
+        } finally {
+            importPermit.release();
+        }
+    }
+
+    private record PendingRow(long line, ImportUserRequest request, Set<Long> roleIds) {
+    }
+
+    // Состояние одного импорта: имена из уже прочитанных строк и накопленная пачка
+    private class Import {
+
+        private final List<ImportRowResult> results;
+        private final Map<String, Long> roleIds;
+        private final Set<String> seenNames = new HashSet<>();
+        private final List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        Import(List<ImportRowResult> results) {
+            this.results = results;
+            this.roleIds = roleRepository.findAll().stream().collect(Collectors.toMap(Role::getName, Role::getId));
+        }
+
+        void run(BufferedReader reader, Format format) throws IOException {
+            if (format == Format.CSV) {
+                readCsv(reader);
+            } else {
+                readNdjson(reader);
+            }
+            flush();
+        }
+
+        private void readNdjson(BufferedReader reader) throws IOException {
+            long line = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    add(line, jsonReader.readValue(text));
+                } catch (JsonProcessingException e) {
+                    invalid(line, e);
+                }
+            }
+        }
+
+        // Записи делит парсер, а не readLine: значение в кавычках может содержать перевод строки
+        private void readCsv(BufferedReader reader) throws IOException {
+            reader.mark(1);
+            if (reader.read() == -1) {
+                return;
+            }
+            reader.reset();
+            try (MappingIterator<ImportUserRequest> rows = csvReader.readValues(reader)) {
+                boolean hasNext = rows.hasNextValue();
+                checkCsvColumns(((CsvParser) rows.getParser()).getSchema());
+                while (hasNext) {
+                    long line = rows.getCurrentLocation().getLineNr();
+                    try {
+                        add(line, rows.nextValue());
+                    } catch (JsonProcessingException e) {
+                        invalid(line, e);
+                    }
+                    hasNext = rows.hasNextValue();
+                }
+            }
+        }
+
+        private void add(long line, ImportUserRequest request) {
+            accept(line, request);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void invalid(long line, JsonProcessingException e) {
+            results.add(new ImportRowResult(line, null, ImportRowResult.Status.INVALID, null,
+                    "Cannot parse row: " + e.getOriginalMessage()));
+        }
+
+        private void accept(long line, ImportUserRequest request) {
+            normalize(request);
+            String error = validate(request);
+            if (error != null) {
+                results.add(new ImportRowResult(line, request.getName(), ImportRowResult.Status.INVALID, null, error));
+                return;
+            }
+            Set<Long> userRoleIds = new LinkedHashSet<>();
+            for (String role : request.getRoles() == null || request.getRoles().isEmpty() ? List.of(DEFAULT_ROLE) : request.getRoles()) {
+                Long roleId = roleIds.get(role);
+                if (roleId == null) {
+                    results.add(new ImportRowResult(line, request.getName(), ImportRowResult.Status.INVALID, null,
+                            "Role not found: " + role));
+                    return;
+                }
+                userRoleIds.add(roleId);
+            }
+            if (!seenNames.add(request.getName())) {
+                results.add(new ImportRowResult(line, request.getName(), ImportRowResult.Status.DUPLICATE, null,
+                        "Username repeats an earlier row: " + request.getName()));
+                return;
+            }
+            chunk.add(new PendingRow(line, request, userRoleIds));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PendingRow> fresh = new ArrayList<>(chunk.size());
+            try {
+                Set<String> existing = userBulkRepository.findExistingNames(
+                        chunk.stream().map(row -> row.request().getName()).toList());
+                for (PendingRow row : chunk) {
+                    if (existing.contains(row.request().getName())) {
+                        results.add(new ImportRowResult(row.line(), row.request().getName(), ImportRowResult.Status.DUPLICATE,
+                                null, "Username already exists: " + row.request().getName()));
+                    } else {
+                        fresh.add(row);
+                    }
+                }
+                if (!fresh.isEmpty()) {
+                    insert(fresh);
+                }
+            } catch (DataAccessException e) {
+                log.error("Failed to import chunk of {} users: {}", chunk.size(), e.getMessage());
+                // Если не прошла проверка имён, fresh пуст и падает вся пачка
+                List<PendingRow> failed = fresh.isEmpty() ? chunk : fresh;
+                String error = "Database error: " + e.getMostSpecificCause().getMessage();
+                failed.forEach(row -> results.add(new ImportRowResult(row.line(), row.request().getName(),
+                        ImportRowResult.Status.FAILED, null, error)));
+            } finally {
+                chunk.clear();
+            }
+        }
+
+        private void insert(List<PendingRow> rows) {
+            List<CompletableFuture<String>> hashes = rows.stream()
+                    .map(row -> row.request().getPasswordHash() != null
+                            ? CompletableFuture.completedFuture(row.request().getPasswordHash())
+                            : CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.request().getPassword()), hashExecutor))
+                    .toList();
+            List<Long> ids = userBulkRepository.allocateIds(rows.size());
+            List<NewUserRow> users = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ImportUserRequest request = rows.get(i).request();
+                users.add(new NewUserRow(ids.get(i), request.getName(), request.getEmail(), hashes.get(i).join(),
+                        request.getTelegramId(), rows.get(i).roleIds()));
+            }
+            userBulkRepository.insert(users);
+            for (int i = 0; i < rows.size(); i++) {
+                results.add(new ImportRowResult(rows.get(i).line(), users.get(i).name(), ImportRowResult.Status.CREATED,
+                        users.get(i).id(), null));
+            }
+        }
+    }
+
+    private static void checkCsvColumns(CsvSchema schema) {
+        for (CsvSchema.Column column : schema) {
+            if (!CSV_COLUMNS.contains(column.getName())) {
+                throw new InvalidImportException("Unknown CSV column: " + column.getName() + ", expected " + CSV_COLUMNS);
+            }
+        }
+    }
+
+    private static void normalize(ImportUserRequest request) {
+        Function<String, String> blankToNull = value -> value == null || value.isBlank() ? null : value.trim();
+        request.setName(blankToNull.apply(request.getName()));
+        request.setEmail(blankToNull.apply(request.getEmail()));
+        request.setPasswordHash(blankToNull.apply(request.getPasswordHash()));
+        request.setTelegramId(blankToNull.apply(request.getTelegramId()));
+        if (request.getPassword() != null && request.getPassword().isEmpty()) {
+            request.setPassword(null);
+        }
+        if (request.getRoles() != null) {
+            request.setRoles(request.getRoles().stream().map(String::trim).filter(role -> !role.isEmpty()).toList());
+        }
+    }
+
+    private static String validate(ImportUserRequest request) {
+        if (request.getName() == null) {
+            return "Name is required";
+        }
+        if ((request.getPassword() == null) == (request.getPasswordHash() == null)) {
+            return "Exactly one of password and passwordHash is required";
+        }
+        if (request.getPasswordHash() != null && !BCRYPT_HASH.matcher(request.getPasswordHash()).matches()) {
+            return "passwordHash is not a BCrypt hash";
+        }
+        return null;
+    }
+}
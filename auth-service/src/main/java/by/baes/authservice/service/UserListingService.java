@@ -0,0 +1,66 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.mapper.UserMapper;
+import by.baes.authservice.repository.UserRepository;
+import by.baes.authservice.repository.UserRoleRow;
+import by.baes.authservice.repository.UserRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Списки пользователей для API: страница строк и роли всех её пользователей двумя запросами,
+ * без загрузки сущностей User и их EAGER-ролей по одной.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class UserListingService {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+
+    public Page<UserDto> findPage(Collection<String> roles, Pageable pageable) {
+        Page<UserRow> rows = roles != null && !roles.isEmpty()
+                ? userRepository.findRowsByRoleNames(roles, pageable)
+                : userRepository.findRows(pageable);
+        Map<Long, Set<String>> roleNames = roleNames(rows.getContent());
+        return rows.map(row -> userMapper.toDto(row, roleNames.getOrDefault(row.id(), Set.of())));
+    }
+
+    public Window<UserDto> scroll(Collection<String> roles, ScrollPosition position, Sort sort, int limit) {
+        Window<UserRow> rows = roles != null && !roles.isEmpty()
+                ? userRepository.findDistinctRowsByRoles_NameIn(roles, position, sort, Limit.of(limit))
+                : userRepository.findRowsBy(position, sort, Limit.of(limit));
+        Map<Long, Set<String>> roleNames = roleNames(rows.getContent());
+        return rows.map(row -> userMapper.toDto(row, roleNames.getOrDefault(row.id(), Set.of())));
+    }
+
+    private Map<Long, Set<String>> roleNames(List<UserRow> rows) {
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Set<String>> roleNames = new HashMap<>();
+        for (UserRoleRow row : userRepository.findRoleNames(rows.stream().map(UserRow::id).toList())) {
+            roleNames.computeIfAbsent(row.userId(), id -> new LinkedHashSet<>()).add(row.roleName());
+        }
+        log.debug("Loaded roles of {} users", rows.size());
+        return roleNames;
+    }
+}
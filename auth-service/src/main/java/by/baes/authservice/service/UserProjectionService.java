@@ -0,0 +1,99 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.datasource.ReadAfterWrite;
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.exception.UserNotFoundException;
+import by.baes.authservice.mapper.UserMapper;
+import by.baes.authservice.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Проекция пользователя (UserDto без expiresAt) в кэше "users" по имени — subject токена.
+ * Любое изменение пользователя или его ролей должно заканчиваться вызовом evict.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserProjectionService {
+
+    public static final String CACHE_NAME = "users";
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final CacheManager cacheManager;
+    private final ReadAfterWrite readAfterWrite;
+
+    // Возвращаемый объект общий для всех читателей кэша, его нельзя изменять
+    @Cacheable(value = CACHE_NAME, key = "#name")
+    public UserDto getByName(String name) {
+        log.debug("Loading user projection: {}", name);
+        User user = readAfterWrite.find(name, () -> userRepository.findByName(name))
+                .orElseThrow(() -> {
+                    log.error("User not found: {}", name);
+                    return new UserNotFoundException("User not found: " + name);
+                });
+        return userMapper.toDto(user);
+    }
+
+    // Пакетный вариант: промахи кэша загружаются одним запросом, ненайденных имён в ответе нет
+    public Map<String, UserDto> getByNames(Collection<String> names) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        Map<String, UserDto> projections = new HashMap<>();
+        Set<String> misses = new LinkedHashSet<>();
+        for (String name : names) {
+            UserDto cached = cache != null ? cache.get(name, UserDto.class) : null;
+            if (cached != null) {
+                projections.put(name, cached);
+            } else {
+                misses.add(name);
+            }
+        }
+        int loaded = 0;
+        if (!misses.isEmpty()) {
+            // Недавно записанные и не найденные на реплике — вторым запросом к основной БД
+            Set<String> primaryMisses = new LinkedHashSet<>();
+            misses.removeIf(name -> readAfterWrite.isRecentlyWritten(name) && primaryMisses.add(name));
+            if (!misses.isEmpty()) {
+                loaded += load(misses, projections, cache);
+                if (readAfterWrite.isReplicated()) {
+                    misses.stream().filter(name -> !projections.containsKey(name)).forEach(primaryMisses::add);
+                }
+            }
+            if (!primaryMisses.isEmpty()) {
+                loaded += readAfterWrite.onPrimary(() -> load(primaryMisses, projections, cache));
+            }
+        }
+        log.debug("Resolved {} user projections, {} loaded from database", names.size(), loaded);
+        return projections;
+    }
+
+    private int load(Collection<String> names, Map<String, UserDto> projections, Cache cache) {
+        List<User> users = userRepository.findByNameIn(names);
+        for (User user : users) {
+            UserDto projection = userMapper.toDto(user);
+            if (projections.putIfAbsent(user.getName(), projection) == null && cache != null) {
+                cache.put(user.getName(), projection);
+            }
+        }
+        return users.size();
+    }
+
+    @CacheEvict(value = CACHE_NAME, key = "#name")
+    public void evict(String name) {
+        log.debug("Evicting user projection: {}", name);
+    }
+}
@@ -0,0 +1,119 @@
+package by.baes.authservice;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.TokenRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест работающего auth-service: validateToken по gRPC и GET /auth/users при большом числе клиентов.
+ * Для сравнения запускается дважды — против сервиса с VIRTUAL_THREADS_ENABLED=false и =true:
+ * ./gradlew test --tests '*ThroughputLoadTest' -Dloadtest.http-url=http://localhost:8080
+ *     -Dloadtest.grpc-target=localhost:9090 -Dloadtest.token=... [-Dloadtest.concurrency=500 -Dloadtest.duration=20s]
+ * Без этих свойств тест пропускается.
+ */
+@Slf4j
+class ThroughputLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 500);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "20s"));
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest.http-url", matches = ".+")
+    void usersEndpoint() throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(System.getProperty("loadtest.http-url") + "/auth/users?page=0&size=20"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        Result result = run(() -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200);
+        log.info("GET /auth/users: {}", result);
+        assertThat(result.succeeded()).isPositive();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest.grpc-target", matches = ".+")
+    void validateToken() throws Exception {
+        ManagedChannel channel = ManagedChannelBuilder.forTarget(System.getProperty("loadtest.grpc-target"))
+                .usePlaintext()
+                .build();
+        try {
+            AuthServiceGrpc.AuthServiceBlockingStub stub = AuthServiceGrpc.newBlockingStub(channel);
+            TokenRequest request = TokenRequest.newBuilder().setToken(System.getProperty("loadtest.token", "")).build();
+            Result result = run(() -> stub.withDeadlineAfter(30, TimeUnit.SECONDS).validateToken(request).getId() != 0);
+            log.info("gRPC validateToken: {}", result);
+            assertThat(result.succeeded()).isPositive();
+        } finally {
+            channel.shutdownNow();
+        }
+    }
+
+    // CONCURRENCY клиентов шлют запросы без пауз в течение DURATION
+    private static Result run(Callable<Boolean> call) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            futures.add(clients.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = call.call();
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    // Неудачные вызовы сохраняются с отрицательной задержкой
+                    long latency = System.nanoTime() - start;
+                    latencies.add(ok ? latency : -latency);
+                }
+                return latencies;
+            }));
+        }
+        List<Long> succeeded = new ArrayList<>();
+        int failed = 0;
+        for (Future<List<Long>> future : futures) {
+            for (long latency : future.get()) {
+                if (latency >= 0) {
+                    succeeded.add(latency);
+                } else {
+                    failed++;
+                }
+            }
+        }
+        clients.shutdownNow();
+        Collections.sort(succeeded);
+        return new Result(succeeded.size(), failed,
+                succeeded.size() / (double) DURATION.toSeconds(),
+                succeeded.isEmpty() ? 0 : TimeUnit.NANOSECONDS.toMillis(succeeded.get((int) (succeeded.size() * 0.99))));
+    }
+
+    private record Result(int succeeded, int failed, double perSecond, long p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%d clients: %.0f req/s, p99 %d ms, %d ok, %d failed",
+                    CONCURRENCY, perSecond, p99Millis, succeeded, failed);
+        }
+    }
+}
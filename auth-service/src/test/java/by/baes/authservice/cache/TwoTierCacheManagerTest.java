@@ -0,0 +1,92 @@
+package by.baes.authservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TwoTierCacheManagerTest {
+
+    // Общий L2 вместо Redis и «канал» pub/sub в памяти
+    private final ConcurrentMapCacheManager redis = new ConcurrentMapCacheManager("userDtos");
+    private final List<TwoTierCacheManager> instances = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void servesRepeatedReadsFromL1() {
+        Cache cache = instance().getCache("userDtos");
+        redis.getCache("userDtos").put("token", "user");
+
+        assertThat(cache.get("token", String.class)).isEqualTo("user");
+        // Запись пропала из L2, но читается из L1
+        redis.getCache("userDtos").evict("token");
+        assertThat(cache.get("token", String.class)).isEqualTo("user");
+
+        assertThat(count("l1", "hit")).isEqualTo(1);
+        assertThat(count("l1", "miss")).isEqualTo(1);
+        assertThat(count("l2", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    void evictionOnOneInstanceInvalidatesL1OfOthers() {
+        Cache first = instance().getCache("userDtos");
+        Cache second = instance().getCache("userDtos");
+        first.put("token", "user");
+        assertThat(second.get("token", String.class)).isEqualTo("user");
+
+        first.evict("token");
+
+        assertThat(second.get("token")).isNull();
+        assertThat(first.get("token")).isNull();
+    }
+
+    @Test
+    void putReplacesStaleL1ValueOnOtherInstances() {
+        Cache first = instance().getCache("userDtos");
+        Cache second = instance().getCache("userDtos");
+        first.put("token", "old");
+        assertThat(second.get("token", String.class)).isEqualTo("old");
+
+        first.put("token", "new");
+
+        assertThat(second.get("token", String.class)).isEqualTo("new");
+    }
+
+    @Test
+    void clearInvalidatesWholeL1() {
+        Cache first = instance().getCache("userDtos");
+        Cache second = instance().getCache("userDtos");
+        first.put("a", "1");
+        first.put("b", "2");
+        second.get("a");
+        second.get("b");
+
+        first.clear();
+
+        assertThat(second.get("a")).isNull();
+        assertThat(second.get("b")).isNull();
+    }
+
+    @Test
+    void unknownCacheIsNotCreated() {
+        assertThat(instance().getCache("missing")).isNull();
+    }
+
+    private TwoTierCacheManager instance() {
+        redis.setAllowNullValues(false);
+        TwoTierCacheManager manager = new TwoTierCacheManager(redis, 100, Duration.ofMinutes(5), meterRegistry,
+                message -> instances.forEach(instance -> instance.onInvalidation(message)));
+        instances.add(manager);
+        return manager;
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets").tag("tier", tier).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,67 @@
+package by.baes.authservice.cache;
+
+import by.baes.authservice.dto.UserDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class UserDtoRedisSerializerTest {
+
+    private final UserDtoRedisSerializer serializer = new UserDtoRedisSerializer();
+
+    @Test
+    void roundTripsUser() {
+        UserDto user = user();
+
+        UserDto restored = serializer.deserialize(serializer.serialize(user));
+
+        assertThat(restored).isEqualTo(user);
+    }
+
+    @Test
+    void keepsMissingOptionalFieldsNull() {
+        UserDto user = user();
+        user.setEmail(null);
+        user.setTelegramId(null);
+        user.setExpiresAt(null);
+
+        assertThat(serializer.deserialize(serializer.serialize(user))).isEqualTo(user);
+    }
+
+    @Test
+    void otherFormatVersionIsCacheMiss() {
+        byte[] json = new Jackson2JsonRedisSerializer<>(UserDto.class).serialize(user());
+        byte[] nextVersion = serializer.serialize(user());
+        nextVersion[0] = UserDtoRedisSerializer.VERSION + 1;
+
+        assertThat(serializer.deserialize(json)).isNull();
+        assertThat(serializer.deserialize(nextVersion)).isNull();
+    }
+
+    @Test
+    void binaryEntryIsSmallerThanJson() {
+        UserDto user = user();
+        int json = new Jackson2JsonRedisSerializer<>(UserDto.class).serialize(user).length;
+        int binary = serializer.serialize(user).length;
+
+        log.info("users value: JSON {} bytes, binary {} bytes", json, binary);
+        assertThat(binary).isLessThan(json * 2 / 3);
+    }
+
+    static UserDto user() {
+        UserDto user = new UserDto();
+        user.setId(42L);
+        user.setName("Иван Петров");
+        user.setEmail("ivan.petrov@example.com");
+        user.setTelegramId("123456789");
+        user.setRoles(new LinkedHashSet<>(List.of("USER", "ADMIN")));
+        user.setExpiresAt(1_767_225_600_000L);
+        return user;
+    }
+}
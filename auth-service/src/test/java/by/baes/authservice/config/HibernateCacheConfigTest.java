@@ -0,0 +1,120 @@
+package by.baes.authservice.config;
+
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Без общей транзакции теста: в регионы второго уровня попадает только закоммиченное
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class HibernateCacheConfigTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ApplicationRunner roleCachePreloader;
+    @Autowired
+    private MeterBinder hibernateMetrics;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void servesPreloadedRolesWithoutQueries() throws Exception {
+        roleRepository.save(role("ADMIN"));
+        roleRepository.save(role("USER"));
+        roleCachePreloader.run(null);
+        statistics.clear();
+
+        assertThat(roleRepository.findByName("ADMIN")).isPresent();
+        assertThat(roleRepository.findByName("USER")).isPresent();
+        assertThat(roleRepository.findAll()).hasSize(2);
+
+        // Кэш запросов Hibernate 6 хранит строки целиком, регион сущностей при этом не читается
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void servesUserByIdFromCache() {
+        Long id = saveUser();
+        userRepository.findById(id);
+        statistics.clear();
+
+        User cached = userRepository.findById(id).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(cached.getRoles()).extracting(Role::getName).containsExactly("USER");
+    }
+
+    @Test
+    void publishesRegionStatistics() throws Exception {
+        Long id = saveUser();
+        roleCachePreloader.run(null);
+        roleRepository.findByName("USER");
+        userRepository.findById(id);
+        userRepository.findById(id);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        hibernateMetrics.bindTo(registry);
+
+        assertThat(registry.get("hibernate.second.level.cache.requests")
+                .tag("region", User.CACHE_REGION)
+                .tag("result", "hit")
+                .functionCounter()
+                .count()).isPositive();
+        assertThat(registry.get("hibernate.cache.query.requests")
+                .tag("result", "hit")
+                .functionCounter()
+                .count()).isPositive();
+    }
+
+    private Long saveUser() {
+        User user = new User();
+        user.setName("alice");
+        user.setPassword("hash");
+        user.setRoles(Set.of(roleRepository.save(role("USER"))));
+        return userRepository.save(user).getId();
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,75 @@
+package by.baes.authservice.config;
+
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Срок жизни пользователей и общего региона запросов сокращён, чтобы дождаться его в тесте
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "cache.entity.user.ttl=50ms"
+})
+class RoleQueryCacheTtlTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ApplicationRunner roleCachePreloader;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void keepsPreloadedRoleQueriesPastUserTtl() throws Exception {
+        Role admin = roleRepository.save(role("ADMIN"));
+        roleRepository.save(role("USER"));
+        User user = new User();
+        user.setName("alice");
+        user.setPassword("hash");
+        user.setRoles(Set.of(admin));
+        Long id = userRepository.save(user).getId();
+        roleCachePreloader.run(null);
+        userRepository.findById(id);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Thread.sleep(200);
+        statistics.clear();
+
+        assertThat(roleRepository.findByName("ADMIN")).isPresent();
+        assertThat(roleRepository.findByName("USER")).isPresent();
+        assertThat(roleRepository.findAll()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // Пользователь за это время из кэша вытеснен — значит, TTL действительно прошёл
+        userRepository.findById(id);
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,143 @@
+package by.baes.authservice.datasource;
+
+import by.baes.authservice.entity.User;
+import by.baes.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Маршрутизация через JpaTransactionManager и Hibernate, как в приложении: в отличие от JDBC,
+// EntityManager держит полученное соединение до закрытия. Две встроенные H2 вместо основной БД и реплики
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+class ReadAfterWriteJpaTest {
+
+    private static final DataSource PRIMARY = database("primary");
+    private static final DataSource REPLICA = database("replica");
+
+    @Autowired
+    private ReadAfterWrite readAfterWrite;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    @TestConfiguration
+    static class RoutingConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean(destroyMethod = "close")
+        ReadWriteRoutingDataSource routingDataSource(MeterRegistry meterRegistry) {
+            return new ReadWriteRoutingDataSource(PRIMARY, Map.of("replica-1", REPLICA),
+                    Duration.ofHours(1), Duration.ofSeconds(1), meterRegistry);
+        }
+
+        @Bean
+        @Primary
+        DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+            return new LazyConnectionDataSourceProxy(routingDataSource);
+        }
+
+        @Bean
+        ReadAfterWrite readAfterWrite(PlatformTransactionManager transactionManager) {
+            ReadReplicaProperties properties = new ReadReplicaProperties();
+            properties.getReplicas().add(new ReadReplicaProperties.Replica());
+            return new ReadAfterWrite(properties, transactionManager);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Hibernate создаёт схему вне транзакции, то есть в основной БД; реплике нужна такая же
+        JdbcTemplate primary = new JdbcTemplate(PRIMARY);
+        JdbcTemplate replica = new JdbcTemplate(REPLICA);
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT NODATA", String.class).forEach(replica::execute);
+        primary.update("DELETE FROM user_roles");
+        primary.update("DELETE FROM users");
+        // Пользователь есть только в основной БД, как при отставании реплики
+        primary.update("INSERT INTO users (name, password) VALUES ('alice', 'x')");
+    }
+
+    @Test
+    void retriesReplicaMissOnPrimaryInsideReadOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        double replicaBefore = connections("replica");
+        double primaryBefore = connections("primary");
+
+        // Внешняя транзакция держит EntityManager с соединением реплики до своего конца
+        Optional<User> user = readOnly.execute(status -> readAfterWrite.find(() -> userRepository.findByName("alice")));
+
+        assertThat(user).map(User::getName).contains("alice");
+        assertThat(connections("replica") - replicaBefore).isEqualTo(1);
+        assertThat(connections("primary") - primaryBefore).isEqualTo(1);
+    }
+
+    @Test
+    void writesAfterReplicaReadGoToPrimary() {
+        assertThat(openInView).isFalse();
+        double replicaBefore = connections("replica");
+        assertThat(userRepository.findByName("bob")).isEmpty();
+        assertThat(connections("replica") - replicaBefore).isEqualTo(1);
+
+        User bob = new User();
+        bob.setName("bob");
+        bob.setPassword("x");
+        userRepository.save(bob);
+
+        assertThat(count(PRIMARY, "bob")).isEqualTo(1);
+        assertThat(count(REPLICA, "bob")).isZero();
+        assertThat(readAfterWrite.onPrimary(() -> userRepository.existsByName("bob"))).isTrue();
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("auth.datasource.connections").tag("target", target).counter().count();
+    }
+
+    private static int count(DataSource dataSource, String name) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT count(*) FROM users WHERE name = ?", Integer.class, name);
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:read-after-write-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
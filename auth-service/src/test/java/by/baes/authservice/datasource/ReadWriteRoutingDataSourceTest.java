@@ -0,0 +1,143 @@
+package by.baes.authservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Две встроенные H2 вместо основной БД и реплики; в каждой таблица с её именем
+class ReadWriteRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SwitchableDataSource replica = new SwitchableDataSource(database("replica"));
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReadWriteRoutingDataSource(database("primary"), Map.of("replica-1", replica),
+                Duration.ofHours(1), Duration.ofSeconds(1), meterRegistry);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.close();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        assertThat(readOnlyDatabase()).isEqualTo("replica");
+        assertThat(readWriteDatabase()).isEqualTo("primary");
+        // Вне транзакции — основная БД
+        assertThat(currentDatabase()).isEqualTo("primary");
+        assertThat(meterRegistry.get("auth.datasource.connections").tag("target", "replica").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failsOverToPrimaryAndReturnsAfterHealthCheck() {
+        replica.down.set(true);
+
+        assertThat(readOnlyDatabase()).isEqualTo("primary");
+        assertThat(routingDataSource.isHealthy("replica-1")).isFalse();
+
+        replica.down.set(false);
+        // До проверки реплика исключена, даже если уже доступна
+        assertThat(readOnlyDatabase()).isEqualTo("primary");
+        routingDataSource.checkReplicas();
+        assertThat(routingDataSource.isHealthy("replica-1")).isTrue();
+        assertThat(readOnlyDatabase()).isEqualTo("replica");
+        assertThat(meterRegistry.get("auth.datasource.failovers").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void readsRecentWritesFromPrimary() {
+        ReadAfterWrite readAfterWrite = new ReadAfterWrite(replicatedProperties(), transactionManager);
+        readAfterWrite.written("alice");
+
+        assertThat(readAfterWrite.find("alice", () -> Optional.of(readOnlyDatabase())))
+                .contains("primary");
+        assertThat(readAfterWrite.find("bob", () -> Optional.of(readOnlyDatabase())))
+                .contains("replica");
+    }
+
+    @Test
+    void retriesReplicaMissOnPrimary() {
+        ReadAfterWrite readAfterWrite = new ReadAfterWrite(replicatedProperties(), transactionManager);
+
+        // Строка есть только в основной БД, как при отставании реплики
+        Optional<String> found = readAfterWrite.find(() -> Optional.of(readOnlyDatabase()).filter("primary"::equals));
+
+        assertThat(found).contains("primary");
+    }
+
+    private String readOnlyDatabase() {
+        return readOnly.execute(status -> currentDatabase());
+    }
+
+    private String readWriteDatabase() {
+        return readWrite.execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM db_name", String.class);
+    }
+
+    private static ReadReplicaProperties replicatedProperties() {
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.getReplicas().add(new ReadReplicaProperties.Replica());
+        return properties;
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS db_name (name VARCHAR(20))");
+        jdbcTemplate.update("DELETE FROM db_name");
+        jdbcTemplate.update("INSERT INTO db_name (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+
+        private final AtomicBoolean down = new AtomicBoolean();
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down.get()) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
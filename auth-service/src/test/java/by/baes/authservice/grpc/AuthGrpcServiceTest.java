@@ -0,0 +1,137 @@
+package by.baes.authservice.grpc;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.TokenBatchRequest;
+import by.baes.auth.grpc.TokenRequest;
+import by.baes.authservice.datasource.ReadAfterWrite;
+import by.baes.authservice.datasource.ReadReplicaProperties;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.mapper.UserMapperImpl;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserRepository;
+import by.baes.authservice.security.JwtKeyProperties;
+import by.baes.authservice.security.JwtKeyRing;
+import by.baes.authservice.security.JwtUtil;
+import by.baes.authservice.security.RevocationStore;
+import by.baes.authservice.service.AuthService;
+import by.baes.authservice.service.TokenRevocationService;
+import by.baes.authservice.service.UserListingService;
+import by.baes.authservice.service.UserProjectionService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Коды ответа, по которым шлюз решает, считать ли вызов сбоем auth-service: INVALID_ARGUMENT
+// circuit breaker пропускает, UNAVAILABLE и INTERNAL засчитывает (AuthCallGuard в gateway-service)
+class AuthGrpcServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final RevocationStore revocationStore = mock(RevocationStore.class);
+    private final JwtUtil jwtUtil = new JwtUtil(new JwtKeyRing(new JwtKeyProperties()), "test-secret-key", 60_000L);
+    private Server server;
+    private ManagedChannel channel;
+    private AuthServiceGrpc.AuthServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor()
+                .addService(createService())
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = AuthServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void reportsRepositoryFailureAsUnavailable() {
+        when(userRepository.findByName("alice"))
+                .thenThrow(new DataAccessResourceFailureException("Unable to acquire JDBC Connection"));
+
+        assertThatThrownBy(() -> stub.validateToken(request(token("alice"))))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE));
+    }
+
+    @Test
+    void reportsBatchRepositoryFailureAsUnavailable() {
+        when(userRepository.findByNameIn(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("Unable to acquire JDBC Connection"));
+
+        assertThatThrownBy(() -> stub.validateTokens(TokenBatchRequest.newBuilder().addTokens(token("alice")).build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE));
+    }
+
+    @Test
+    void reportsUnexpectedFailureAsInternal() {
+        when(userRepository.findByName("alice")).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> stub.validateToken(request(token("alice"))))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INTERNAL));
+    }
+
+    @Test
+    void reportsBadTokenAndUnknownUserAsInvalidArgument() {
+        when(userRepository.findByName("ghost")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> stub.validateToken(request("not-a-jwt")))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+        assertThatThrownBy(() -> stub.validateToken(request(token("ghost"))))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT));
+    }
+
+    private AuthGrpcService createService() {
+        ReadAfterWrite readAfterWrite = new ReadAfterWrite(new ReadReplicaProperties(), mock(PlatformTransactionManager.class));
+        UserMapperImpl userMapper = new UserMapperImpl();
+        UserProjectionService userProjectionService = new UserProjectionService(userRepository, userMapper,
+                new ConcurrentMapCacheManager(UserProjectionService.CACHE_NAME), readAfterWrite);
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(revocationStore, 1_000, 0.001,
+                Duration.ofSeconds(1), Duration.ofHours(1), new SimpleMeterRegistry());
+        AuthService authService = new AuthService(userRepository, mock(RoleRepository.class), mock(PasswordEncoder.class),
+                jwtUtil, userMapper, userProjectionService, tokenRevocationService, mock(UserListingService.class),
+                readAfterWrite);
+        return new AuthGrpcService(authService, new JwtKeyRing(new JwtKeyProperties()), tokenRevocationService);
+    }
+
+    private String token(String name) {
+        User user = new User();
+        user.setId(7L);
+        user.setName(name);
+        return jwtUtil.generateToken(user);
+    }
+
+    private static TokenRequest request(String token) {
+        return TokenRequest.newBuilder().setToken(token).build();
+    }
+}
@@ -0,0 +1,90 @@
+package by.baes.authservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Настоящий PostgreSQL со схемой из changelog Liquibase: nextval/generate_series и пакетные вставки
+// с reWriteBatchedInserts в H2 не проверить. Без Docker тест пропускается
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserBulkRepository.class)
+@Testcontainers(disabledWithoutDocker = true)
+class UserBulkRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void allocatesIdsFromTheSequenceUsedByRegularInserts() {
+        List<Long> ids = userBulkRepository.allocateIds(5);
+
+        assertThat(ids).hasSize(5).doesNotHaveDuplicates().isSorted();
+        Long regularId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (name, password) VALUES ('regular', 'x') RETURNING id", Long.class);
+        assertThat(regularId).isGreaterThan(ids.get(4));
+    }
+
+    @Test
+    void insertsUsersWithRolesInBatches() {
+        Map<String, Long> roles = roleIds();
+        List<Long> ids = userBulkRepository.allocateIds(3);
+        List<NewUserRow> users = new ArrayList<>();
+        users.add(new NewUserRow(ids.get(0), "alice", "alice@example.com", "hash-a", "42",
+                Set.of(roles.get("USER"), roles.get("ADMIN"))));
+        users.add(new NewUserRow(ids.get(1), "bob", null, "hash-b", null, Set.of(roles.get("USER"))));
+        users.add(new NewUserRow(ids.get(2), "carol", null, "hash-c", null, Set.of()));
+
+        userBulkRepository.insert(users);
+
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM users WHERE id IN (?, ?, ?) ORDER BY id", String.class,
+                ids.get(0), ids.get(1), ids.get(2))).containsExactly("alice", "bob", "carol");
+        assertThat(jdbcTemplate.queryForMap("SELECT email, password, telegram_id FROM users WHERE id = ?", ids.get(0)))
+                .containsEntry("email", "alice@example.com")
+                .containsEntry("password", "hash-a")
+                .containsEntry("telegram_id", "42");
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ?",
+                String.class, ids.get(0))).containsExactlyInAnyOrder("USER", "ADMIN");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM user_roles WHERE user_id = ?", Integer.class,
+                ids.get(2))).isZero();
+    }
+
+    @Test
+    void findsOnlyExistingNames() {
+        List<Long> ids = userBulkRepository.allocateIds(1);
+        userBulkRepository.insert(List.of(new NewUserRow(ids.get(0), "alice", null, "hash", null, Set.of())));
+
+        assertThat(userBulkRepository.findExistingNames(List.of("alice", "bob"))).containsExactly("alice");
+        assertThat(userBulkRepository.findExistingNames(List.of())).isEmpty();
+    }
+
+    private Map<String, Long> roleIds() {
+        Map<String, Long> roles = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM roles", rs -> {
+            roles.put(rs.getString("name"), rs.getLong("id"));
+        });
+        return roles;
+    }
+}
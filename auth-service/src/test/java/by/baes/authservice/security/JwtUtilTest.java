@@ -0,0 +1,126 @@
+package by.baes.authservice.security;
+
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.exception.InvalidTokenException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-key";
+
+    private final JwtKeyRing keyRing = new JwtKeyRing(ephemeral(SignatureAlgorithm.RS256));
+    private final JwtUtil jwtUtil = createJwtUtil(keyRing);
+
+    @Test
+    void signsWithActiveKeyAndVerifies() {
+        String token = jwtUtil.generateToken(user());
+
+        assertThat(Jwts.parser().setSigningKey(keyRing.getPublicKey(keyRing.getActiveKeyId()).orElseThrow())
+                .parseClaimsJws(token).getHeader().getKeyId()).isEqualTo(keyRing.getActiveKeyId());
+        Claims claims = jwtUtil.validateToken(token);
+        assertThat(claims.getSubject()).isEqualTo("alice");
+        assertThat(((Number) claims.get("id")).longValue()).isEqualTo(7L);
+        assertThat(claims.get("email")).isEqualTo("alice@example.com");
+        assertThat(claims.get("roles")).isEqualTo(List.of("ADMIN"));
+        // jti уникален для каждого токена — по нему токен отзывается
+        assertThat(claims.getId()).isNotBlank()
+                .isNotEqualTo(jwtUtil.validateToken(jwtUtil.generateToken(user())).getId());
+    }
+
+    @Test
+    void acceptsLegacySharedSecretTokens() {
+        String legacy = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+
+        assertThat(jwtUtil.validateToken(legacy).getSubject()).isEqualTo("alice");
+    }
+
+    @Test
+    void rejectsTokenSignedWithUnknownKey() {
+        JwtUtil otherIssuer = createJwtUtil(new JwtKeyRing(ephemeral(SignatureAlgorithm.RS256)));
+        String token = otherIssuer.generateToken(user());
+
+        assertThatThrownBy(() -> jwtUtil.validateToken(token)).isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void signsAndVerifiesWithEllipticCurveKey() {
+        JwtKeyRing ecKeyRing = new JwtKeyRing(ephemeral(SignatureAlgorithm.ES256));
+        JwtUtil ecJwtUtil = createJwtUtil(ecKeyRing);
+
+        String token = ecJwtUtil.generateToken(user());
+
+        assertThat(Jwts.parser().setSigningKey(ecKeyRing.getPublicKey(ecKeyRing.getActiveKeyId()).orElseThrow())
+                .parseClaimsJws(token).getHeader().getAlgorithm()).isEqualTo("ES256");
+        assertThat(ecJwtUtil.validateToken(token).getSubject()).isEqualTo("alice");
+    }
+
+    @Test
+    void refusesAsymmetricAlgorithmWithoutKeys() {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setAlgorithm(SignatureAlgorithm.RS256);
+
+        assertThatThrownBy(() -> new JwtKeyRing(properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("jwt.ephemeral-key");
+    }
+
+    @Test
+    void defaultsToSharedSecret() {
+        JwtKeyRing defaultKeyRing = new JwtKeyRing(new JwtKeyProperties());
+        String token = createJwtUtil(defaultKeyRing).generateToken(user());
+
+        assertThat(defaultKeyRing.getPublicKeys()).isEmpty();
+        assertThat(Jwts.parser().setSigningKey(TextCodec.BASE64.decode(SECRET)).parseClaimsJws(token).getBody().getSubject())
+                .isEqualTo("alice");
+    }
+
+    @Test
+    void sharedParserIsSafeAcrossThreads() {
+        List<String> tokens = IntStream.range(0, 32).mapToObj(i -> jwtUtil.generateToken(user())).toList();
+
+        List<String> subjects = tokens.parallelStream()
+                .flatMap(token -> IntStream.range(0, 20).mapToObj(i -> jwtUtil.validateToken(token).getSubject()))
+                .toList();
+
+        assertThat(subjects).hasSize(640).containsOnly("alice");
+    }
+
+    private static JwtKeyProperties ephemeral(SignatureAlgorithm algorithm) {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setAlgorithm(algorithm);
+        properties.setEphemeralKey(true);
+        return properties;
+    }
+
+    private static JwtUtil createJwtUtil(JwtKeyRing keyRing) {
+        return new JwtUtil(keyRing, SECRET, 60_000L);
+    }
+
+    private static User user() {
+        Role role = new Role();
+        role.setName("ADMIN");
+        User user = new User();
+        user.setId(7L);
+        user.setName("alice");
+        user.setEmail("alice@example.com");
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
@@ -0,0 +1,145 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.security.RevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationServiceTest {
+
+    private final InMemoryRevocationStore store = new InMemoryRevocationStore();
+
+    @Test
+    void checksStoreOnlyForFilterHits() {
+        TokenRevocationService service = createService(Duration.ofHours(1));
+        service.sync();
+        service.revoke("revoked", expiresIn(60_000));
+
+        assertThat(service.isRevoked("revoked")).isTrue();
+        int lookups = store.lookups.get();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(service.isRevoked("active-" + i)).isFalse();
+        }
+
+        // При fpp 0.001 на 1000 действующих токенов в хранилище уходят единицы проверок
+        assertThat(store.lookups.get() - lookups).isLessThan(10);
+    }
+
+    @Test
+    void picksUpRevocationsFromOtherInstances() {
+        TokenRevocationService local = createService(Duration.ofHours(1));
+        TokenRevocationService other = createService(Duration.ofHours(1));
+        local.sync();
+        other.sync();
+
+        other.revoke("elsewhere", expiresIn(60_000));
+        local.sync();
+
+        assertThat(local.isRevoked("elsewhere")).isTrue();
+    }
+
+    @Test
+    void checksStoreUntilFirstSync() {
+        store.revoke("revoked", expiresIn(60_000));
+        TokenRevocationService service = createService(Duration.ofHours(1));
+
+        assertThat(service.isRevoked("revoked")).isTrue();
+        assertThat(service.isRevoked("active")).isFalse();
+        assertThat(store.lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    void loadsJournalLongerThanOnePage() {
+        IntStream.range(0, TokenRevocationService.PAGE_SIZE * 2 + 5)
+                .forEach(i -> store.revoke("token-" + i, expiresIn(60_000)));
+        TokenRevocationService service = createService(Duration.ofHours(1));
+        service.sync();
+        int lookups = store.lookups.get();
+
+        assertThat(service.isRevoked("token-" + (TokenRevocationService.PAGE_SIZE * 2 + 4))).isTrue();
+        assertThat(store.lookups.get() - lookups).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildDropsExpiredTokens() {
+        store.revoke("expired", expiresIn(-1));
+        TokenRevocationService service = createService(Duration.ZERO);
+        service.sync();
+        int lookups = store.lookups.get();
+
+        assertThat(service.isRevoked("expired")).isFalse();
+        assertThat(store.lookups.get()).isEqualTo(lookups);
+    }
+
+    @Test
+    void growsFilterOnceJournalExceedsExpectedInsertions() {
+        IntStream.range(0, 50).forEach(i -> store.revoke("token-" + i, expiresIn(60_000)));
+        TokenRevocationService service = createService(Duration.ofHours(1), 20);
+        service.sync();
+        // Первый фильтр переполнен: одна пересборка с ёмкостью по наблюдаемому числу отзывов
+        service.sync();
+        assertThat(store.fullScans.get()).isEqualTo(2);
+
+        store.revoke("late", expiresIn(60_000));
+        service.sync();
+        service.sync();
+
+        assertThat(store.fullScans.get()).isEqualTo(2);
+        assertThat(service.isRevoked("late")).isTrue();
+        assertThat(service.isRevoked("token-49")).isTrue();
+    }
+
+    private TokenRevocationService createService(Duration rebuildInterval) {
+        return createService(rebuildInterval, 10_000);
+    }
+
+    private TokenRevocationService createService(Duration rebuildInterval, int expectedInsertions) {
+        return new TokenRevocationService(store, expectedInsertions, 0.001, Duration.ofSeconds(1), rebuildInterval,
+                new SimpleMeterRegistry());
+    }
+
+    private static long expiresIn(long millis) {
+        return System.currentTimeMillis() + millis;
+    }
+
+    // Журнал без обрезки и без TTL: хранилище в тестах не теряет записи
+    private static class InMemoryRevocationStore implements RevocationStore {
+
+        private final Map<String, Long> revoked = new HashMap<>();
+        private final List<Revocation> journal = new ArrayList<>();
+        private final AtomicInteger lookups = new AtomicInteger();
+        private final AtomicInteger fullScans = new AtomicInteger();
+
+        @Override
+        public synchronized void revoke(String tokenId, long expiresAt) {
+            revoked.put(tokenId, expiresAt);
+            journal.add(new Revocation(tokenId, expiresAt));
+        }
+
+        @Override
+        public synchronized boolean isRevoked(String tokenId) {
+            lookups.incrementAndGet();
+            Long expiresAt = revoked.get(tokenId);
+            return expiresAt != null && expiresAt > System.currentTimeMillis();
+        }
+
+        @Override
+        public synchronized RevocationPage readAfter(String cursor, int limit) {
+            if (cursor.isEmpty()) {
+                fullScans.incrementAndGet();
+            }
+            int from = cursor.isEmpty() ? 0 : Integer.parseInt(cursor);
+            int to = Math.min(journal.size(), from + limit);
+            return new RevocationPage(List.copyOf(journal.subList(from, to)), Integer.toString(to));
+        }
+    }
+}
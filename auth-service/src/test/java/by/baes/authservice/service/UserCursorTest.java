@@ -0,0 +1,37 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserCursorTest {
+
+    @Test
+    void roundTripsNameAndId() {
+        String cursor = UserCursor.encode(ScrollPosition.forward(Map.of("name", "alice:admin", "id", 42L)));
+
+        KeysetScrollPosition position = (KeysetScrollPosition) UserCursor.decode(cursor);
+
+        assertThat(position.getKeys()).containsEntry("name", "alice:admin").containsEntry("id", 42L);
+        assertThat(cursor).doesNotContain("alice");
+    }
+
+    @Test
+    void emptyCursorStartsFromFirstPage() {
+        assertThat(UserCursor.decode("").isInitial()).isTrue();
+        assertThat(UserCursor.decode(null).isInitial()).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> UserCursor.decode("not base64!")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserCursor.decode("YWxpY2U")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserCursor.decode("eDphbGljZQ")).isInstanceOf(InvalidCursorException.class);
+    }
+}
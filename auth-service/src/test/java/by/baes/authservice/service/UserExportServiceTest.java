@@ -0,0 +1,119 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserExportRepository;
+import by.baes.authservice.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Встроенная H2 со схемой из сущностей: changelog Liquibase рассчитан на PostgreSQL
+@DataJpaTest
+@Import({UserExportService.class, UserExportRepository.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "auth.export.fetch-size=7"
+})
+class UserExportServiceTest {
+
+    private static final int USERS = 50;
+
+    @Autowired
+    private UserExportService userExportService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        Role user = roleRepository.save(role("USER"));
+        Role admin = roleRepository.save(role("ADMIN"));
+        for (int i = 0; i < USERS; i++) {
+            Set<Role> roles = i % 10 == 0 ? Set.of() : i % 3 == 0 ? Set.of(user, admin) : Set.of(user);
+            userRepository.save(user(String.format("user-%03d", i), roles));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void writesOneLinePerUserWithRoles() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = userExportService.export(null, out);
+
+        List<UserDto> users = parse(out);
+        assertThat(count).isEqualTo(USERS);
+        assertThat(users).hasSize(USERS);
+        assertThat(users).extracting(UserDto::getId).isSorted();
+        assertThat(users.get(0).getName()).isEqualTo("user-000");
+        assertThat(users.get(0).getRoles()).isEmpty();
+        assertThat(users.get(3).getRoles()).containsExactlyInAnyOrder("USER", "ADMIN");
+        assertThat(users.get(3).getEmail()).isEqualTo("user-003@example.com");
+        assertThat(users.get(4).getRoles()).containsExactly("USER");
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("}\n").doesNotContain("expiresAt");
+    }
+
+    @Test
+    void filtersByRoleButKeepsAllRolesOfMatchingUsers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = userExportService.export(List.of("ADMIN"), out);
+
+        List<UserDto> users = parse(out);
+        // i % 3 == 0 без кратных 10: 0, 30 не попадают
+        assertThat(count).isEqualTo(15);
+        assertThat(users).hasSize(15)
+                .allSatisfy(user -> assertThat(user.getRoles()).containsExactlyInAnyOrder("USER", "ADMIN"));
+    }
+
+    private List<UserDto> parse(ByteArrayOutputStream out) throws IOException {
+        List<UserDto> users = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            users.add(objectMapper.readValue(line, UserDto.class));
+        }
+        return users;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static User user(String name, Set<Role> roles) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("hash");
+        user.setRoles(roles);
+        return user;
+    }
+}
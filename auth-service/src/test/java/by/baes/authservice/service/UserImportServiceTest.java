@@ -0,0 +1,206 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.ImportResult;
+import by.baes.authservice.dto.ImportRowResult;
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.exception.InvalidImportException;
+import by.baes.authservice.repository.NewUserRow;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserBulkRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    private final UserBulkRepository userBulkRepository = mock(UserBulkRepository.class);
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<NewUserRow> inserted = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong(100);
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "USER"), role(2L, "ADMIN")));
+        when(userBulkRepository.findExistingNames(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return names.stream().filter("taken"::equals).collect(Collectors.toSet());
+        });
+        when(userBulkRepository.allocateIds(anyInt())).thenAnswer(invocation -> LongStream
+                .range(0, invocation.<Integer>getArgument(0)).map(i -> sequence.incrementAndGet()).boxed().toList());
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0))).when(userBulkRepository).insert(anyList());
+        userImportService = createService(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+    }
+
+    @Test
+    void importsCsvWithRolesAndHashesPasswords() throws IOException {
+        ImportResult result = userImportService.importUsers(body("""
+                name,email,password,roles
+                alice,alice@example.com,secret,ADMIN;USER
+                bob,,hunter2,
+                """), UserImportService.Format.CSV);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRows()).extracting(ImportRowResult::getLine, ImportRowResult::getStatus, ImportRowResult::getId)
+                .containsExactly(
+                        tuple(2L, ImportRowResult.Status.CREATED, 101L),
+                        tuple(3L, ImportRowResult.Status.CREATED, 102L));
+        NewUserRow alice = inserted.get(0);
+        assertThat(alice.email()).isEqualTo("alice@example.com");
+        assertThat(alice.roleIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ENCODER.matches("secret", alice.passwordHash())).isTrue();
+        NewUserRow bob = inserted.get(1);
+        assertThat(bob.email()).isNull();
+        assertThat(bob.roleIds()).containsExactly(1L);
+    }
+
+    @Test
+    void readsQuotedCsvValuesSpanningLines() throws IOException {
+        ImportResult result = userImportService.importUsers(body("""
+                name,password,roles
+                alice,"multi
+                line, with comma",ADMIN
+                "bob"x,secret,
+
+                carol,"say \"\"hi\"\"",USER
+                """), UserImportService.Format.CSV);
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getLine, ImportRowResult::getStatus)
+                .containsExactly(
+                        tuple(4L, ImportRowResult.Status.INVALID),
+                        tuple(2L, ImportRowResult.Status.CREATED),
+                        tuple(6L, ImportRowResult.Status.CREATED));
+        assertThat(ENCODER.matches("multi\nline, with comma", inserted.get(0).passwordHash())).isTrue();
+        assertThat(ENCODER.matches("say \"hi\"", inserted.get(1).passwordHash())).isTrue();
+    }
+
+    @Test
+    void importsNdjsonAndKeepsPrehashedPasswords() throws IOException {
+        String hash = ENCODER.encode("secret");
+
+        ImportResult result = userImportService.importUsers(body("""
+                {"name": "alice", "passwordHash": "%s", "telegramId": "42", "roles": ["ADMIN"]}
+
+                {"name": "bob", "password": "hunter2"}
+                """.formatted(hash)), UserImportService.Format.NDJSON);
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRows()).extracting(ImportRowResult::getLine).containsExactly(1L, 3L);
+        assertThat(inserted.get(0).passwordHash()).isEqualTo(hash);
+        assertThat(inserted.get(0).telegramId()).isEqualTo("42");
+        assertThat(inserted.get(0).roleIds()).containsExactly(2L);
+    }
+
+    @Test
+    void reportsInvalidAndDuplicateRowsWithoutFailingTheImport() throws IOException {
+        ImportResult result = userImportService.importUsers(body("""
+                {"name": "alice", "password": "secret"}
+                {"name": "alice", "password": "other"}
+                {"name": "taken", "password": "secret"}
+                {"name": "", "password": "secret"}
+                {"name": "carol"}
+                {"name": "dave", "password": "secret", "passwordHash": "x"}
+                {"name": "erin", "passwordHash": "plain-text"}
+                {"name": "frank", "password": "secret", "roles": ["ROOT"]}
+                {"name": broken
+                """), UserImportService.Format.NDJSON);
+
+        assertThat(result.getTotal()).isEqualTo(9);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(8);
+        assertThat(result.getRows()).filteredOn(row -> row.getStatus() == ImportRowResult.Status.DUPLICATE)
+                .extracting(ImportRowResult::getLine).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(result.getRows()).filteredOn(row -> row.getStatus() == ImportRowResult.Status.INVALID)
+                .extracting(ImportRowResult::getLine).containsExactlyInAnyOrder(4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(inserted).extracting(NewUserRow::name).containsExactly("alice");
+        assertThat(meterRegistry.get("auth.import.rows").tag("status", "invalid").counter().count()).isEqualTo(6);
+    }
+
+    @Test
+    void checksNamesAndInsertsOncePerChunk() throws IOException {
+        String hash = ENCODER.encode("secret");
+        StringBuilder csv = new StringBuilder("name,passwordHash\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("user").append(i).append(',').append(hash).append('\n');
+        }
+
+        ImportResult result = userImportService.importUsers(body(csv.toString()), UserImportService.Format.CSV);
+
+        assertThat(result.getCreated()).isEqualTo(5);
+        verify(userBulkRepository, times(3)).findExistingNames(anyCollection());
+        verify(userBulkRepository, times(3)).insert(anyList());
+        assertThat(inserted).extracting(NewUserRow::id).containsExactly(101L, 102L, 103L, 104L, 105L);
+    }
+
+    @Test
+    void marksChunkFailedWhenInsertFails() throws IOException {
+        doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"))
+                .when(userBulkRepository).insert(anyList());
+
+        ImportResult result = userImportService.importUsers(body("""
+                {"name": "alice", "password": "secret"}
+                {"name": "taken", "password": "secret"}
+                """), UserImportService.Format.NDJSON);
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+                .containsExactlyInAnyOrder(ImportRowResult.Status.FAILED, ImportRowResult.Status.DUPLICATE);
+    }
+
+    @Test
+    void rejectsUnknownCsvColumn() {
+        assertThatThrownBy(() -> userImportService.importUsers(body("login,password\nalice,secret\n"), UserImportService.Format.CSV))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessageContaining("login");
+    }
+
+    private UserImportService createService(int chunkSize) {
+        return new UserImportService(userBulkRepository, roleRepository, new ObjectMapper(), 4, chunkSize, 2, meterRegistry);
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
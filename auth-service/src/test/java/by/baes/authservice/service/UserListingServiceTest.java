@@ -0,0 +1,125 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.mapper.UserMapperImpl;
+import by.baes.authservice.repository.RoleRepository;
+import by.baes.authservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Встроенная H2 со схемой из сущностей: changelog Liquibase рассчитан на PostgreSQL.
+// Второй уровень кэша выключен — считаются запросы к самой БД
+@DataJpaTest
+@Import({UserListingService.class, UserMapperImpl.class})
+@TestPropertySource(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserListingServiceTest {
+
+    private static final int USERS = 150;
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 100, Sort.by("name"));
+
+    @Autowired
+    private UserListingService userListingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role user = roleRepository.save(role("USER"));
+        Role admin = roleRepository.save(role("ADMIN"));
+        for (int i = 0; i < USERS; i++) {
+            userRepository.save(user(String.format("user-%03d", i), i % 3 == 0 ? Set.of(user, admin) : Set.of(user)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loadsPageOfHundredUsersWithThreeStatements() {
+        Page<UserDto> page = userListingService.findPage(null, FIRST_PAGE);
+
+        // Строки страницы, роли её пользователей и COUNT для totalElements
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(page.getContent()).hasSize(100);
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+        assertThat(page.getContent().get(0).getName()).isEqualTo("user-000");
+        assertThat(page.getContent().get(0).getRoles()).containsExactlyInAnyOrder("USER", "ADMIN");
+        assertThat(page.getContent().get(1).getRoles()).containsExactly("USER");
+    }
+
+    @Test
+    void entityPathLoadsRolesPerUser() {
+        userRepository.findAll(FIRST_PAGE).map(new UserMapperImpl()::toDto);
+
+        assertThat(statistics.getPrepareStatementCount()).isGreaterThan(100);
+    }
+
+    @Test
+    void roleFilterReturnsEachUserOnce() {
+        Page<UserDto> page = userListingService.findPage(List.of("USER", "ADMIN"), FIRST_PAGE);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+        assertThat(page.getContent()).extracting(UserDto::getName).doesNotHaveDuplicates().hasSize(100);
+    }
+
+    @Test
+    void scrollsWithoutCount() {
+        Window<UserDto> window = userListingService.scroll(List.of("ADMIN"), ScrollPosition.keyset(),
+                Sort.by("name", "id"), 100);
+
+        // Строки окна и роли; общее число не считается
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(window.getContent()).hasSize(USERS / 3).allSatisfy(user -> assertThat(user.getRoles()).contains("ADMIN"));
+        assertThat(window.hasNext()).isFalse();
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static User user(String name, Set<Role> roles) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("hash");
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,118 @@
+package by.baes.authservice.service;
+
+import by.baes.authservice.datasource.ReadAfterWrite;
+import by.baes.authservice.datasource.ReadReplicaProperties;
+import by.baes.authservice.dto.UserDto;
+import by.baes.authservice.entity.Role;
+import by.baes.authservice.entity.User;
+import by.baes.authservice.exception.UserNotFoundException;
+import by.baes.authservice.mapper.UserMapperImpl;
+import by.baes.authservice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+class UserProjectionServiceTest {
+
+    @Configuration
+    @EnableCaching
+    @Import({UserProjectionService.class, UserMapperImpl.class, ReadAfterWrite.class, ReadReplicaProperties.class})
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(UserProjectionService.CACHE_NAME);
+        }
+    }
+
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserProjectionService userProjectionService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(UserProjectionService.CACHE_NAME).clear();
+        when(userRepository.findByName("alice")).thenReturn(Optional.of(user(1L, "alice", "USER")));
+        when(userRepository.findByName("ghost")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void repeatedLookupsHitDatabaseOnce() {
+        UserDto first = userProjectionService.getByName("alice");
+        UserDto second = userProjectionService.getByName("alice");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.getRoles()).containsExactly("USER");
+        verify(userRepository, times(1)).findByName("alice");
+    }
+
+    @Test
+    void evictReloadsChangedUser() {
+        userProjectionService.getByName("alice");
+        when(userRepository.findByName("alice")).thenReturn(Optional.of(user(1L, "alice", "ADMIN")));
+
+        userProjectionService.evict("alice");
+
+        assertThat(userProjectionService.getByName("alice").getRoles()).containsExactly("ADMIN");
+        verify(userRepository, times(2)).findByName("alice");
+    }
+
+    @Test
+    void missingUserIsNotCached() {
+        assertThatThrownBy(() -> userProjectionService.getByName("ghost")).isInstanceOf(UserNotFoundException.class);
+        assertThatThrownBy(() -> userProjectionService.getByName("ghost")).isInstanceOf(UserNotFoundException.class);
+
+        verify(userRepository, times(2)).findByName("ghost");
+    }
+
+    @Test
+    void batchLoadsOnlyMissesInOneQuery() {
+        userProjectionService.getByName("alice");
+        when(userRepository.findByNameIn(anyCollection())).thenReturn(List.of(user(2L, "bob", "USER")));
+
+        Map<String, UserDto> projections = userProjectionService.getByNames(Set.of("alice", "bob", "ghost"));
+
+        assertThat(projections).containsOnlyKeys("alice", "bob");
+        verify(userRepository).findByNameIn(Set.of("bob", "ghost"));
+        // bob попал в кэш, одиночный запрос в БД уже не идёт
+        assertThat(userProjectionService.getByName("bob").getId()).isEqualTo(2L);
+        verify(userRepository, times(0)).findByName("bob");
+    }
+
+    private static User user(long id, String name, String role) {
+        Role userRole = new Role();
+        userRole.setName(role);
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setRoles(Set.of(userRole));
+        return user;
+    }
+}
@@ -0,0 +1,66 @@
+package by.baes.gatewayservice.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сравнение проверки политики маршрута: разбор конфигурации на каждый запрос (как было) и собранная RoutePolicy.
+ * Запуск: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutePolicyBenchmark {
+
+    private static final String EXCLUDE_PATHS = "/auth/login, /auth/register, /auth/refresh, /actuator/health";
+    private static final String ROLES = "ADMIN, DISPATCHER";
+
+    @Param({"/auth/users", "/auth/login"})
+    private String path;
+
+    private final List<String> userRoles = List.of("USER", "DISPATCHER");
+    private RoutePolicy policy;
+
+    @Setup
+    public void setUp() {
+        policy = RoutePolicy.compile(EXCLUDE_PATHS, ROLES);
+    }
+
+    @Benchmark
+    public boolean parsePerRequest() {
+        List<String> excludePaths = parseConfigList(EXCLUDE_PATHS);
+        if (!excludePaths.isEmpty() && excludePaths.stream().anyMatch(path::startsWith)) {
+            return true;
+        }
+        List<String> requiredRoles = parseConfigList(ROLES);
+        return requiredRoles.isEmpty() || requiredRoles.stream().anyMatch(userRoles::contains);
+    }
+
+    @Benchmark
+    public boolean compiledPolicy() {
+        return policy.isExcluded(path) || policy.isAuthorized(userRoles);
+    }
+
+    // Прежняя реализация из TokenValidationFilter
+    private static List<String> parseConfigList(String configValue) {
+        if (configValue == null || configValue.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(configValue.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
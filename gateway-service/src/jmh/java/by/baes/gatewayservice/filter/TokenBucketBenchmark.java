@@ -0,0 +1,50 @@
+package by.baes.gatewayservice.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость решения лимитера на запрос: поиск бакета пользователя и CAS, в том числе при конкуренции потоков.
+ * Запуск: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenBucketBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private final ConcurrentHashMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private TokenBucket sharedBucket;
+
+    @Setup
+    public void setUp() {
+        long now = System.nanoTime();
+        for (long id = 0; id < USERS; id++) {
+            buckets.put(id, TokenBucket.of(1_000_000, 1_000, now));
+        }
+        sharedBucket = TokenBucket.of(1_000_000_000, 1_000, now);
+    }
+
+    @Benchmark
+    public long lookupAndAcquire() {
+        Long userId = (long) ThreadLocalRandom.current().nextInt(USERS);
+        return buckets.get(userId).tryAcquire(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedSingleBucket() {
+        return sharedBucket.tryAcquire(System.nanoTime());
+    }
+}
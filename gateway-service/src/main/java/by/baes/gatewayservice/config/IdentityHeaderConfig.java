@@ -0,0 +1,21 @@
+package by.baes.gatewayservice.config;
+
+import by.baes.identity.IdentitySigner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+@Configuration
+public class IdentityHeaderConfig {
+
+    // Тот же секрет и id ключа должны быть у auth-service и photoS3-service
+    @Bean
+    public IdentitySigner identitySigner(@Value("${identity.header.key-id:1}") int keyId,
+                                         @Value("${identity.header.secret}") String secret,
+                                         @Value("${identity.header.ttl:30s}") Duration ttl) {
+        return new IdentitySigner(keyId, secret.getBytes(StandardCharsets.UTF_8), ttl);
+    }
+}
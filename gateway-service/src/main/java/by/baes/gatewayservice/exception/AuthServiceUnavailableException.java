@@ -0,0 +1,7 @@
+package by.baes.gatewayservice.exception;
+
+public class AuthServiceUnavailableException extends RuntimeException {
+    public AuthServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,135 @@
+package by.baes.gatewayservice.filter;
+
+import com.netflix.concurrency.limits.Limit;
+import com.netflix.concurrency.limits.Limiter;
+import com.netflix.concurrency.limits.limit.Gradient2Limit;
+import com.netflix.concurrency.limits.limit.VegasLimit;
+import com.netflix.concurrency.limits.limiter.AbstractLimiter;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Адаптивный лимит одновременных запросов к бэкенду маршрута (Gradient2 или Vegas из concurrency-limits).
+ * Лимит подстраивается под наблюдаемое время ответа; запросы сверх лимита сразу получают 503, а не ждут в очереди.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyFilter extends AbstractGatewayFilterFactory<AdaptiveConcurrencyFilter.Config> {
+
+    public enum Algorithm {
+        GRADIENT, VEGAS
+    }
+
+    private final MeterRegistry meterRegistry;
+    // Текущий лимитер маршрута: при обновлении маршрутов gauge читают уже новый
+    private final ConcurrentMap<String, AtomicReference<AbstractLimiter<Void>>> routeLimiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        AbstractLimiter<Void> limiter = SimpleLimiter.newBuilder()
+                .named(routeId)
+                .limit(limit(config))
+                .build();
+        registerGauges(routeId).set(limiter);
+        Counter shed = Counter.builder("gateway.concurrency.shed")
+                .description("Requests rejected because the route concurrency limit was reached")
+                .tag("route", routeId)
+                .register(meterRegistry);
+
+        return (exchange, chain) -> {
+            Optional<Limiter.Listener> acquired = limiter.acquire(null);
+            if (acquired.isEmpty()) {
+                shed.increment();
+                log.debug("Concurrency limit {} reached on route {}, request shed", limiter.getLimit(), routeId);
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                return response.setComplete();
+            }
+            Limiter.Listener listener = acquired.get();
+            return chain.filter(exchange)
+                    .doFinally(signal -> release(listener, signal, exchange.getResponse().getStatusCode()));
+        };
+    }
+
+    private AtomicReference<AbstractLimiter<Void>> registerGauges(String routeId) {
+        return routeLimiters.computeIfAbsent(routeId, id -> {
+            AtomicReference<AbstractLimiter<Void>> current = new AtomicReference<>();
+            Gauge.builder("gateway.concurrency.limit", current, ref -> ref.get().getLimit())
+                    .description("Current adaptive concurrency limit of the route")
+                    .tag("route", id)
+                    .strongReference(true)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in-flight", current, ref -> ref.get().getInflight())
+                    .description("Requests currently in flight to the route backend")
+                    .tag("route", id)
+                    .strongReference(true)
+                    .register(meterRegistry);
+            return current;
+        });
+    }
+
+    // Таймауты и перегрузка бэкенда уменьшают лимит, отмена клиентом в расчёт не идёт
+    private static void release(Limiter.Listener listener, SignalType signal, HttpStatusCode status) {
+        if (signal == SignalType.CANCEL) {
+            listener.onIgnore();
+        } else if (signal == SignalType.ON_ERROR || isOverloaded(status)) {
+            listener.onDropped();
+        } else {
+            listener.onSuccess();
+        }
+    }
+
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status.value() == HttpStatus.GATEWAY_TIMEOUT.value()
+                || status.value() == HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    private static Limit limit(Config config) {
+        return switch (config.getAlgorithm()) {
+            case VEGAS -> VegasLimit.newBuilder()
+                    .initialLimit(config.getInitialLimit())
+                    .maxConcurrency(config.getMaxLimit())
+                    .build();
+            case GRADIENT -> Gradient2Limit.newBuilder()
+                    .initialLimit(config.getInitialLimit())
+                    .minLimit(config.getMinLimit())
+                    .maxConcurrency(config.getMaxLimit())
+                    .build();
+        };
+    }
+
+    @Setter
+    @Getter
+    public static class Config implements HasRouteId {
+        private Algorithm algorithm = Algorithm.GRADIENT;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        private String routeId;
+    }
+}
@@ -0,0 +1,77 @@
+package by.baes.gatewayservice.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Политика доступа маршрута, собранная один раз из конфигурации TokenValidationFilter.
+ * Проверки на каждом запросе не выделяют память.
+ */
+final class RoutePolicy {
+
+    private final String[] excludedPrefixes;
+    private final Set<String> requiredRoles;
+
+    private RoutePolicy(String[] excludedPrefixes, Set<String> requiredRoles) {
+        this.excludedPrefixes = excludedPrefixes;
+        this.requiredRoles = requiredRoles;
+    }
+
+    static RoutePolicy compile(String excludePaths, String roles) {
+        return new RoutePolicy(compilePrefixes(parseConfigList(excludePaths)), Set.copyOf(parseConfigList(roles)));
+    }
+
+    boolean isExcluded(String path) {
+        // После удаления вложенных префиксов подходящим может быть только наибольший префикс <= path
+        int index = Arrays.binarySearch(excludedPrefixes, path);
+        if (index >= 0) {
+            return true;
+        }
+        int candidate = -index - 2;
+        return candidate >= 0 && path.startsWith(excludedPrefixes[candidate]);
+    }
+
+    boolean isAuthorized(List<String> userRoles) {
+        if (requiredRoles.isEmpty()) {
+            return true;
+        }
+        if (userRoles == null) {
+            return false;
+        }
+        for (int i = 0; i < userRoles.size(); i++) {
+            if (requiredRoles.contains(userRoles.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> getRequiredRoles() {
+        return requiredRoles;
+    }
+
+    // Сортирует префиксы и убирает те, что уже покрыты более коротким префиксом
+    private static String[] compilePrefixes(List<String> prefixes) {
+        List<String> result = new ArrayList<>();
+        for (String prefix : new TreeSet<>(prefixes)) {
+            if (result.isEmpty() || !prefix.startsWith(result.get(result.size() - 1))) {
+                result.add(prefix);
+            }
+        }
+        return result.toArray(String[]::new);
+    }
+
+    // Вспомогательный метод для обработки строки конфигурации
+    private static List<String> parseConfigList(String configValue) {
+        if (configValue == null || configValue.trim().isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(configValue.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,47 @@
+package by.baes.gatewayservice.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket в форме GCRA: состояние — одно число (теоретическое время прихода следующего запроса),
+ * обновляемое CAS без блокировок.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long emissionIntervalNanos, long burstToleranceNanos, long nowNanos) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstToleranceNanos = burstToleranceNanos;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    static TokenBucket of(double replenishRate, int burstCapacity, long nowNanos) {
+        long interval = (long) (1_000_000_000L / replenishRate);
+        return new TokenBucket(interval, interval * (Math.max(1, burstCapacity) - 1), nowNanos);
+    }
+
+    /**
+     * @return 0, если запрос пропущен, иначе сколько наносекунд ждать до следующего токена
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, nowNanos);
+            long wait = arrival - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    // Бакет полностью восстановился и простаивает: удалить его — то же, что создать заново
+    boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - theoreticalArrival.get() >= idleNanos;
+    }
+}
@@ -1,11 +1,18 @@
 package by.baes.gatewayservice.filter;
 
+import by.baes.gatewayservice.exception.AuthServiceUnavailableException;
+import by.baes.gatewayservice.filter.RouteAuthMetrics.Outcome;
 import by.baes.gatewayservice.service.GrpcAuthService;
+import by.baes.identity.Identity;
+import by.baes.identity.IdentityHeader;
+import by.baes.identity.IdentitySigner;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -13,67 +20,88 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class TokenValidationFilter extends AbstractGatewayFilterFactory<TokenValidationFilter.Config> {
 
+    // Проверенный пользователь для следующих фильтров маршрута
+    public static final String IDENTITY_ATTRIBUTE = TokenValidationFilter.class.getName() + ".identity";
+
     private final GrpcAuthService grpcAuthService;
+    private final IdentitySigner identitySigner;
+    private final MeterRegistry meterRegistry;
 
-    public TokenValidationFilter(GrpcAuthService grpcAuthService) {
+    public TokenValidationFilter(GrpcAuthService grpcAuthService, IdentitySigner identitySigner, MeterRegistry meterRegistry) {
         super(Config.class);
         this.grpcAuthService = grpcAuthService;
+        this.identitySigner = identitySigner;
+        this.meterRegistry = meterRegistry;
         log.info("TokenValidationFilter initialized");
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        // Конфигурация разбирается один раз при создании фильтра, а не на каждый запрос
+        RoutePolicy policy = RoutePolicy.compile(config.getExcludePaths(), config.getRoles());
+        RouteAuthMetrics metrics = new RouteAuthMetrics(meterRegistry, config.getRouteId());
         return (exchange, chain) -> {
+            long start = System.nanoTime();
             ServerHttpRequest request = exchange.getRequest();
-            String path = request.getPath().toString();
-
-            log.info("Request path: {}", path);
+            String path = request.getPath().value();
 
             // Пропускаем исключенные пути
-            List<String> excludePaths = parseConfigList(config.getExcludePaths());
-            if (!excludePaths.isEmpty() && excludePaths.stream().anyMatch(path::startsWith)) {
-                log.info("Excluding path: {}", path);
+            if (policy.isExcluded(path)) {
+                log.debug("Excluding path: {}", path);
+                metrics.record(Outcome.EXCLUDED, start);
                 return chain.filter(exchange);
             }
 
             String token = extractToken(request);
             if (token == null) {
-                log.warn("Token not found");
+                log.debug("Token not found, path: {}", path);
+                metrics.record(Outcome.UNAUTHORIZED, start);
                 return handleUnauthorized(exchange, HttpStatus.UNAUTHORIZED);
             }
 
             return grpcAuthService.validateToken(token)
                     .flatMap(claims -> {
-                        log.info("Token validated, claims: {}", claims);
+                        log.debug("Token validated, path: {}, user: {}", path, claims.get("name"));
 
                         // Проверяем роли, если они указаны
-                        List<String> requiredRoles = parseConfigList(config.getRoles());
-                        if (!requiredRoles.isEmpty()) {
-                            @SuppressWarnings("unchecked")
-                            List<String> userRoles = (List<String>) claims.get("roles");
-                            if (userRoles == null || requiredRoles.stream()
-                                    .noneMatch(userRoles::contains)) {
-                                log.warn("User roles {} do not match required roles {}", userRoles, requiredRoles);
-                                return handleUnauthorized(exchange, HttpStatus.FORBIDDEN);
-                            }
+                        @SuppressWarnings("unchecked")
+                        List<String> userRoles = (List<String>) claims.get("roles");
+                        if (!policy.isAuthorized(userRoles)) {
+                            log.debug("User roles {} do not match required roles {}", userRoles, policy.getRequiredRoles());
+                            metrics.record(Outcome.FORBIDDEN, start);
+                            return handleUnauthorized(exchange, HttpStatus.FORBIDDEN);
                         }
 
-                        // Добавляем claims в заголовки
-                        ServerHttpRequest modifiedRequest = addClaimsToHeaders(request, claims);
+                        Identity identity = identitySigner.issue(
+                                ((Number) claims.get("id")).longValue(),
+                                (String) claims.get("name"),
+                                (String) claims.get("email"),
+                                userRoles);
+                        exchange.getAttributes().put(IDENTITY_ATTRIBUTE, identity);
+
+                        // Передаём пользователя одним подписанным заголовком
+                        String identityHeader = identitySigner.sign(identity);
+                        ServerHttpRequest modifiedRequest = request.mutate()
+                                .headers(headers -> headers.set(IdentityHeader.NAME, identityHeader))
+                                .build();
+                        // Время самого маршрута в метрику не входит, только аутентификация
+                        metrics.record(Outcome.ALLOWED, start);
                         return chain.filter(exchange.mutate().request(modifiedRequest).build());
                     })
+                    .onErrorResume(AuthServiceUnavailableException.class, e -> {
+                        log.debug("Auth service unavailable: {}", e.getMessage());
+                        metrics.record(Outcome.UNAVAILABLE, start);
+                        return handleUnauthorized(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+                    })
                     .onErrorResume(e -> {
-                        log.warn("Token validation failed: {}", e.getMessage());
+                        log.debug("Token validation failed: {}", e.getMessage());
+                        metrics.record(Outcome.UNAUTHORIZED, start);
                         return handleUnauthorized(exchange, HttpStatus.UNAUTHORIZED);
                     });
         };
@@ -87,35 +115,18 @@ public class TokenValidationFilter extends AbstractGatewayFilterFactory<TokenVal
         return null;
     }
 
-    private ServerHttpRequest addClaimsToHeaders(ServerHttpRequest request, Map<String, Object> claims) {
-        ServerHttpRequest.Builder modifiedRequest = request.mutate();
-        for (String claimKey : claims.keySet()) {
-            modifiedRequest.header("X-Auth-" + claimKey, claims.get(claimKey).toString());
-        }
-        return modifiedRequest.build();
-    }
-
     private Mono<Void> handleUnauthorized(ServerWebExchange exchange, HttpStatus status) {
         ServerHttpResponse response = exchange.getResponse();
         response.setStatusCode(status);
         return response.setComplete();
     }
 
-    // Вспомогательный метод для обработки строки конфигурации
-    private List<String> parseConfigList(String configValue) {
-        if (configValue == null || configValue.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
-        return Arrays.stream(configValue.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .collect(Collectors.toList());
-    }
-
     @Setter
     @Getter
-    public static class Config {
+    public static class Config implements HasRouteId {
         private String excludePaths;
         private String roles;
+        // Заполняется фабрикой маршрутов, используется как тег метрик
+        private String routeId;
     }
 }
\ No newline at end of file
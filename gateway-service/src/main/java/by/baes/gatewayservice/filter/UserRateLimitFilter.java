@@ -0,0 +1,131 @@
+package by.baes.gatewayservice.filter;
+
+import by.baes.identity.Identity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов на пользователя и маршрут, в памяти gateway.
+ * Ставится после TokenValidationFilter; запросы без пользователя (исключённые пути) ограничиваются по адресу клиента.
+ */
+@Slf4j
+@Component
+public class UserRateLimitFilter extends AbstractGatewayFilterFactory<UserRateLimitFilter.Config> {
+
+    private final MeterRegistry meterRegistry;
+    private final long idleNanos;
+    // Бакеты маршрутов; при обновлении маршрутов старые заменяются
+    private final ConcurrentMap<String, Map<Object, TokenBucket>> routeBuckets = new ConcurrentHashMap<>();
+    private final Disposable evictionTask;
+
+    public UserRateLimitFilter(MeterRegistry meterRegistry,
+                               @Value("${gateway.rate-limit.idle-eviction:5m}") Duration idleEviction) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.idleNanos = idleEviction.toNanos();
+        this.evictionTask = Flux.interval(idleEviction)
+                .subscribe(tick -> evictIdleBuckets());
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getReplenishRate() <= 0) {
+            throw new IllegalArgumentException("replenishRate must be positive");
+        }
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        ConcurrentMap<Object, TokenBucket> buckets = new ConcurrentHashMap<>();
+        routeBuckets.put(routeId, buckets);
+        Counter rejected = Counter.builder("gateway.rate-limit.rejected")
+                .description("Requests rejected by the per-user rate limiter")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        double replenishRate = config.getReplenishRate();
+        int burstCapacity = Math.max(config.getBurstCapacity(), 1);
+
+        return (exchange, chain) -> {
+            long now = System.nanoTime();
+            Object key = key(exchange);
+            // get без блокировки для существующего бакета, computeIfAbsent только для нового
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(key, k -> TokenBucket.of(replenishRate, burstCapacity, now));
+            }
+            long waitNanos = bucket.tryAcquire(now);
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+            rejected.increment();
+            log.debug("Rate limit exceeded on route {}, retry after {} ms", routeId, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            return tooManyRequests(exchange, waitNanos);
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictionTask.dispose();
+    }
+
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        routeBuckets.values().forEach(buckets -> buckets.entrySet()
+                .removeIf(entry -> entry.getValue().isIdle(now, idleNanos)));
+    }
+
+    int bucketCount() {
+        return routeBuckets.values().stream().mapToInt(Map::size).sum();
+    }
+
+    // Пользователь из TokenValidationFilter, иначе адрес клиента
+    private static Object key(ServerWebExchange exchange) {
+        Identity identity = exchange.getAttribute(TokenValidationFilter.IDENTITY_ATTRIBUTE);
+        if (identity != null) {
+            return identity.id();
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress()
+                : "unknown";
+    }
+
+    private static Mono<Void> tooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        // Retry-After в целых секундах, с округлением вверх
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+        return response.setComplete();
+    }
+
+    @Setter
+    @Getter
+    public static class Config implements HasRouteId {
+        // Запросов в секунду на пользователя
+        private double replenishRate;
+        // Сколько запросов можно сделать подряд (размер бакета)
+        private int burstCapacity = 1;
+        private String routeId;
+    }
+}
@@ -0,0 +1,196 @@
+package by.baes.gatewayservice.security;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.SigningKey;
+import by.baes.auth.grpc.SigningKeysRequest;
+import by.baes.auth.grpc.SigningKeysResponse;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальная проверка подписи и срока действия JWT по публичным ключам auth-service.
+ * Ключи загружаются через gRPC GetSigningKeys, периодически и при встрече неизвестного kid.
+ */
+@Component
+@Slf4j
+public class JwtVerifier {
+
+    public enum Status {
+        VERIFIED,
+        INVALID,
+        // Локально проверить нельзя (HMAC, неизвестный kid, старый формат) — нужен запрос в auth-service
+        INCONCLUSIVE
+    }
+
+    // tokenId — jti проверенного токена, null если его нет
+    public record Verification(Status status, Map<String, Object> claims, long expiresAt, String tokenId, String error) {
+
+        static Verification verified(Map<String, Object> claims, long expiresAt, String tokenId) {
+            return new Verification(Status.VERIFIED, claims, expiresAt, tokenId, null);
+        }
+
+        static Verification invalid(String error) {
+            return new Verification(Status.INVALID, null, 0, null, error);
+        }
+
+        static Verification inconclusive(String reason) {
+            return new Verification(Status.INCONCLUSIVE, null, 0, null, reason);
+        }
+    }
+
+    @GrpcClient("auth-service")
+    private AuthServiceGrpc.AuthServiceFutureStub authServiceStub;
+
+    private final Duration refreshInterval;
+    private final Duration minRefreshInterval;
+    private final Duration keysDeadline;
+    private final AtomicLong lastRefreshNanos = new AtomicLong(System.nanoTime());
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private Disposable refreshTask;
+
+    // Собирается один раз: резолвер читает текущий набор ключей, сам парсер не перенастраивается
+    private final JwtParser parser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (!isAsymmetric(SignatureAlgorithm.forName(header.getAlgorithm()))) {
+                throw new UnresolvableKeyException("Unsupported algorithm: " + header.getAlgorithm());
+            }
+            PublicKey key = header.getKeyId() != null ? keys.get(header.getKeyId()) : null;
+            if (key == null) {
+                throw new UnresolvableKeyException("Unknown signing key: " + header.getKeyId());
+            }
+            return key;
+        }
+    });
+
+    public JwtVerifier(@Value("${gateway.auth.jwt.keys-refresh-interval:5m}") Duration refreshInterval,
+                       @Value("${gateway.auth.jwt.min-keys-refresh-interval:30s}") Duration minRefreshInterval,
+                       @Value("${gateway.auth.grpc.keys-deadline:5s}") Duration keysDeadline) {
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+        this.keysDeadline = keysDeadline;
+    }
+
+    public Verification verify(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (UnresolvableKeyException e) {
+            requestRefresh();
+            return Verification.inconclusive(e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            return Verification.invalid(e.getMessage());
+        }
+
+        Object id = claims.get("id");
+        if (!(id instanceof Number) || claims.getExpiration() == null) {
+            return Verification.inconclusive("Token has no user claims");
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", ((Number) id).longValue());
+        result.put("name", claims.getSubject());
+        result.put("email", claims.get("email") != null ? claims.get("email").toString() : "");
+        result.put("roles", claims.get("roles") instanceof List<?> roles
+                ? roles.stream().map(Object::toString).toList()
+                : List.of());
+        return Verification.verified(Map.copyOf(result), claims.getExpiration().getTime(), claims.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startKeyRefresh() {
+        refreshTask = Flux.interval(Duration.ZERO, refreshInterval)
+                .subscribe(tick -> refreshKeys());
+    }
+
+    @PreDestroy
+    public void stopKeyRefresh() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    // Обновление при неизвестном kid, не чаще min-keys-refresh-interval
+    private void requestRefresh() {
+        long last = lastRefreshNanos.get();
+        long now = System.nanoTime();
+        if (now - last >= minRefreshInterval.toNanos() && lastRefreshNanos.compareAndSet(last, now)) {
+            refreshKeys();
+        }
+    }
+
+    public void refreshKeys() {
+        lastRefreshNanos.set(System.nanoTime());
+        Futures.addCallback(authServiceStub
+                .withDeadlineAfter(keysDeadline.toMillis(), TimeUnit.MILLISECONDS)
+                .getSigningKeys(SigningKeysRequest.getDefaultInstance()), new FutureCallback<>() {
+            @Override
+            public void onSuccess(SigningKeysResponse response) {
+                updateKeys(response.getKeysList());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.warn("Failed to fetch JWT signing keys: {}", t.getMessage());
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    void updateKeys(List<SigningKey> signingKeys) {
+        Map<String, PublicKey> updated = new HashMap<>();
+        for (SigningKey signingKey : signingKeys) {
+            try {
+                SignatureAlgorithm algorithm = SignatureAlgorithm.forName(signingKey.getAlgorithm());
+                if (!isAsymmetric(algorithm)) {
+                    continue;
+                }
+                updated.put(signingKey.getKeyId(), KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC")
+                        .generatePublic(new X509EncodedKeySpec(signingKey.getPublicKey().toByteArray())));
+            } catch (GeneralSecurityException | JwtException e) {
+                log.warn("Skipping JWT signing key {}: {}", signingKey.getKeyId(), e.getMessage());
+            }
+        }
+        if (!updated.keySet().equals(keys.keySet())) {
+            log.info("JWT signing keys updated: {}", updated.keySet());
+        }
+        keys = Map.copyOf(updated);
+    }
+
+    private static boolean isAsymmetric(SignatureAlgorithm algorithm) {
+        return algorithm.isRsa() || algorithm.isEllipticCurve();
+    }
+
+    private static class UnresolvableKeyException extends JwtException {
+        UnresolvableKeyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package by.baes.gatewayservice.security;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.Revocation;
+import by.baes.auth.grpc.RevocationsRequest;
+import by.baes.auth.grpc.RevocationsResponse;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bloom-фильтр отозванных jti, синхронизируемый с журналом отзывов auth-service через gRPC GetRevocations.
+ * Отрицательный ответ фильтра позволяет принять токен из кэша или по локальной проверке подписи;
+ * положительный (в том числе ложный) отправляет токен на точную проверку в auth-service.
+ */
+@Component
+@Slf4j
+public class RevokedTokens {
+
+    @GrpcClient("auth-service")
+    private AuthServiceGrpc.AuthServiceFutureStub authServiceStub;
+
+    private final Duration syncInterval;
+    private final long rebuildIntervalNanos;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration deadline;
+    private final Counter suspected;
+    private final AtomicBoolean syncing = new AtomicBoolean();
+    // null до первой загрузки журнала: тогда под подозрением любой токен с jti
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile long capacity;
+    private volatile String cursor = "";
+    private volatile long rebuiltAtNanos;
+    private Disposable syncTask;
+
+    public RevokedTokens(@Value("${gateway.auth.revocation.sync-interval:2s}") Duration syncInterval,
+                         @Value("${gateway.auth.revocation.rebuild-interval:1h}") Duration rebuildInterval,
+                         @Value("${gateway.auth.revocation.bloom.expected-insertions:100000}") int expectedInsertions,
+                         @Value("${gateway.auth.revocation.bloom.false-positive-rate:0.001}") double falsePositiveRate,
+                         @Value("${gateway.auth.grpc.keys-deadline:5s}") Duration deadline,
+                         MeterRegistry meterRegistry) {
+        this.syncInterval = syncInterval;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.deadline = deadline;
+        this.suspected = Counter.builder("gateway.auth.revocation.suspected")
+                .description("Tokens sent to auth-service because the revocation filter matched them")
+                .register(meterRegistry);
+        Gauge.builder("gateway.auth.revocation.filter.size", this,
+                        revokedTokens -> revokedTokens.filter != null ? revokedTokens.filter.approximateElementCount() : 0)
+                .description("Approximate number of token ids in the revocation Bloom filter")
+                .register(meterRegistry);
+    }
+
+    // Токены без jti (выпущенные до его появления) отозвать нельзя
+    public boolean mightBeRevoked(String tokenId) {
+        if (tokenId == null || tokenId.isEmpty()) {
+            return false;
+        }
+        BloomFilter<CharSequence> current = filter;
+        if (current == null || current.mightContain(tokenId)) {
+            suspected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSync() {
+        syncTask = Flux.interval(Duration.ZERO, syncInterval)
+                .subscribe(tick -> sync());
+    }
+
+    @PreDestroy
+    public void stopSync() {
+        if (syncTask != null) {
+            syncTask.dispose();
+        }
+    }
+
+    // Догоняет журнал с последнего курсора; раз в rebuild-interval собирает новый фильтр без истёкших токенов
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!syncing.compareAndSet(false, true)) {
+            done.complete(null);
+            return done;
+        }
+        BloomFilter<CharSequence> current = filter;
+        long count = current != null ? current.approximateElementCount() : 0;
+        boolean rebuild = current == null
+                || System.nanoTime() - rebuiltAtNanos >= rebuildIntervalNanos
+                || count > capacity;
+        if (!rebuild) {
+            fetch(current, cursor, 0, done);
+            return done;
+        }
+        // Ёмкость с запасом от наблюдаемого числа отзывов, иначе переполненный фильтр пересобирался бы на каждой синхронизации
+        long targetCapacity = Math.max(expectedInsertions, 2 * count);
+        fetch(BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), targetCapacity, falsePositiveRate),
+                "", targetCapacity, done);
+        return done;
+    }
+
+    // rebuildCapacity > 0 — собирается новый фильтр этой ёмкости, иначе дополняется текущий
+    private void fetch(BloomFilter<CharSequence> target, String from, long rebuildCapacity, CompletableFuture<Void> done) {
+        Futures.addCallback(authServiceStub
+                .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .getRevocations(RevocationsRequest.newBuilder().setCursor(from).build()), new FutureCallback<>() {
+            @Override
+            public void onSuccess(RevocationsResponse response) {
+                long now = System.currentTimeMillis();
+                for (Revocation revocation : response.getRevocationsList()) {
+                    if (revocation.getExpiresAt() > now) {
+                        target.put(revocation.getTokenId());
+                    }
+                }
+                // Страницы запрашиваются, пока журнал не закончится
+                if (response.getRevocationsCount() > 0) {
+                    fetch(target, response.getCursor(), rebuildCapacity, done);
+                    return;
+                }
+                if (rebuildCapacity > 0) {
+                    capacity = rebuildCapacity;
+                    filter = target;
+                    rebuiltAtNanos = System.nanoTime();
+                    log.debug("Revocation filter rebuilt with ~{} token ids", target.approximateElementCount());
+                }
+                cursor = response.getCursor();
+                syncing.set(false);
+                done.complete(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.warn("Failed to sync token revocations: {}", t.getMessage());
+                syncing.set(false);
+                done.complete(null);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+}
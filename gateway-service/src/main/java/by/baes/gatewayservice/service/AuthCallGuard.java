@@ -0,0 +1,139 @@
+package by.baes.gatewayservice.service;
+
+import by.baes.gatewayservice.exception.AuthServiceUnavailableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Защита вызовов auth-service: circuit breaker, который при открытии сразу отвечает ошибкой,
+ * и хеджирование — повторный вызов, если первый не ответил за время p95 успешных вызовов.
+ */
+@Component
+@Slf4j
+public class AuthCallGuard {
+
+    // Коды, означающие проблему auth-service, а не невалидный токен
+    private static final Set<Status.Code> FAILURE_CODES = Set.of(
+            Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.INTERNAL,
+            Status.Code.UNKNOWN);
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final CircuitBreaker circuitBreaker;
+    private final boolean hedgingEnabled;
+    private final long minHedgeDelayNanos;
+    private final Timer attemptTimer;
+    private final Counter hedges;
+    private volatile long hedgeDelayNanos;
+    private volatile long hedgeDelayUpdatedNanos;
+
+    public AuthCallGuard(@Value("${gateway.auth.grpc.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                         @Value("${gateway.auth.grpc.circuit-breaker.slow-call-duration:1s}") Duration slowCallDuration,
+                         @Value("${gateway.auth.grpc.circuit-breaker.sliding-window-size:100}") int slidingWindowSize,
+                         @Value("${gateway.auth.grpc.circuit-breaker.minimum-number-of-calls:20}") int minimumNumberOfCalls,
+                         @Value("${gateway.auth.grpc.circuit-breaker.wait-duration-in-open-state:10s}") Duration waitInOpenState,
+                         @Value("${gateway.auth.grpc.hedging.enabled:false}") boolean hedgingEnabled,
+                         @Value("${gateway.auth.grpc.hedging.min-delay:20ms}") Duration minHedgeDelay,
+                         MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(waitInOpenState)
+                .recordException(AuthCallGuard::isAuthServiceFailure)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        this.circuitBreaker = registry.circuitBreaker("auth-service");
+        this.circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("auth-service circuit breaker: {}", event.getStateTransition()));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        this.hedgingEnabled = hedgingEnabled;
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.hedgeDelayNanos = minHedgeDelayNanos;
+        this.attemptTimer = Timer.builder("gateway.auth.grpc.attempt")
+                .description("Latency of successful single calls to auth-service, used for the hedging delay")
+                .publishPercentiles(0.95)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedges = Counter.builder("gateway.auth.grpc.hedges")
+                .description("Hedged calls sent to auth-service")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> call(Supplier<Mono<T>> attempt) {
+        return (hedgingEnabled ? hedged(attempt) : timed(attempt))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(AuthCallGuard::isUnavailable, e -> new AuthServiceUnavailableException(
+                        e instanceof CallNotPermittedException
+                                ? "auth-service circuit breaker is open"
+                                : "auth-service unavailable: " + e.getMessage(), e));
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    // Первый пришедший сигнал (ответ или ошибка) побеждает, второй вызов отменяется
+    private <T> Mono<T> hedged(Supplier<Mono<T>> attempt) {
+        Mono<T> hedge = Mono.defer(() -> Mono.delay(Duration.ofNanos(hedgeDelayNanos())))
+                .then(Mono.defer(() -> {
+                    hedges.increment();
+                    return timed(attempt);
+                }));
+        return Mono.firstWithSignal(timed(attempt), hedge);
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> attempt) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return attempt.get()
+                    .doOnSuccess(value -> attemptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    // Снимок перцентиля дорогой, поэтому задержка пересчитывается не чаще раза в секунду
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayUpdatedNanos >= HEDGE_DELAY_REFRESH_NANOS) {
+            hedgeDelayUpdatedNanos = now;
+            long p95 = 0;
+            for (ValueAtPercentile percentile : attemptTimer.takeSnapshot().percentileValues()) {
+                p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+            }
+            hedgeDelayNanos = Math.max(minHedgeDelayNanos, p95);
+        }
+        return hedgeDelayNanos;
+    }
+
+    private static boolean isAuthServiceFailure(Throwable t) {
+        return FAILURE_CODES.contains(Status.fromThrowable(t).getCode());
+    }
+
+    private static boolean isUnavailable(Throwable t) {
+        return t instanceof CallNotPermittedException || isAuthServiceFailure(t);
+    }
+}
@@ -3,33 +3,257 @@ package by.baes.gatewayservice.service;
 import by.baes.auth.grpc.AuthServiceGrpc;
 import by.baes.auth.grpc.TokenRequest;
 import by.baes.auth.grpc.UserResponse;
+import by.baes.gatewayservice.exception.AuthServiceUnavailableException;
+import by.baes.gatewayservice.security.JwtVerifier;
+import by.baes.gatewayservice.security.RevokedTokens;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
+@Slf4j
 public class GrpcAuthService {
 
     @GrpcClient("auth-service")
-    private AuthServiceGrpc.AuthServiceBlockingStub authServiceStub;
+    private AuthServiceGrpc.AuthServiceFutureStub authServiceStub;
+
+    private final Cache<TokenDigest, CachedValidation> validationCache;
+    // Выполняющиеся проверки: параллельные запросы с одним токеном ждут один общий вызов
+    private final ConcurrentMap<TokenDigest, Mono<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final Duration deadline;
+    private final boolean batchEnabled;
+    private final JwtVerifier jwtVerifier;
+    private final RevokedTokens revokedTokens;
+    private final TokenValidationBatcher batcher;
+    private final AuthCallGuard callGuard;
+    private final Counter cacheHits;
+    private final Counter localValidations;
+    private final Counter remoteValidations;
+    private final Timer remoteSuccess;
+    private final Timer remoteFailure;
+    private final Counter batchRejections;
+
+    @Autowired
+    public GrpcAuthService(JwtVerifier jwtVerifier,
+                           RevokedTokens revokedTokens,
+                           TokenValidationBatcher batcher,
+                           AuthCallGuard callGuard,
+                           @Value("${gateway.auth.cache.max-size:100000}") long maxSize,
+                           @Value("${gateway.auth.cache.max-ttl:5m}") Duration maxTtl,
+                           @Value("${gateway.auth.grpc.deadline:2s}") Duration deadline,
+                           @Value("${gateway.auth.grpc.batch.enabled:false}") boolean batchEnabled,
+                           MeterRegistry meterRegistry) {
+        this(jwtVerifier, revokedTokens, batcher, callGuard, maxSize, maxTtl, deadline, batchEnabled, meterRegistry,
+                Ticker.systemTicker());
+    }
+
+    // Ticker подменяется в тестах истечения записей кэша
+    GrpcAuthService(JwtVerifier jwtVerifier,
+                    RevokedTokens revokedTokens,
+                    TokenValidationBatcher batcher,
+                    AuthCallGuard callGuard,
+                    long maxSize,
+                    Duration maxTtl,
+                    Duration deadline,
+                    boolean batchEnabled,
+                    MeterRegistry meterRegistry,
+                    Ticker ticker) {
+        this.jwtVerifier = jwtVerifier;
+        this.revokedTokens = revokedTokens;
+        this.batcher = batcher;
+        this.callGuard = callGuard;
+        this.deadline = deadline;
+        this.batchEnabled = batchEnabled;
+        this.validationCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl.toNanos()))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validationCache, "tokenValidation");
+        this.cacheHits = validationCounter(meterRegistry, "cache");
+        this.localValidations = validationCounter(meterRegistry, "local");
+        this.remoteValidations = validationCounter(meterRegistry, "remote");
+        this.remoteSuccess = grpcTimer(meterRegistry, "success");
+        this.remoteFailure = grpcTimer(meterRegistry, "failure");
+        this.batchRejections = Counter.builder("gateway.auth.grpc.batch.rejected")
+                .description("Validations sent as unary calls because the batch queue rejected them")
+                .register(meterRegistry);
+    }
 
     public Mono<Map<String, Object>> validateToken(String token) {
-        return Mono.fromCallable(() -> {
+        TokenDigest digest = TokenDigest.of(token);
+        CachedValidation cached = validationCache.getIfPresent(digest);
+        if (cached != null) {
+            if (!revokedTokens.mightBeRevoked(cached.tokenId())) {
+                cacheHits.increment();
+                return Mono.just(cached.claims());
+            }
+            // Токен мог быть отозван после попадания в кэш: точный ответ только у auth-service
+            validationCache.invalidate(digest);
+            return inFlight.computeIfAbsent(digest, key -> fetchClaims(token, key));
+        }
+
+        // Подпись и срок действия проверяются локально; в auth-service идём, только если проверка неоднозначна
+        JwtVerifier.Verification verification = jwtVerifier.verify(token);
+        if (verification.status() != JwtVerifier.Status.INCONCLUSIVE) {
+            localValidations.increment();
+        }
+        switch (verification.status()) {
+            case VERIFIED -> {
+                if (revokedTokens.mightBeRevoked(verification.tokenId())) {
+                    return inFlight.computeIfAbsent(digest, key -> fetchClaims(token, key));
+                }
+                validationCache.put(digest, new CachedValidation(
+                        verification.claims(), verification.expiresAt(), verification.tokenId()));
+                return Mono.just(verification.claims());
+            }
+            case INVALID -> {
+                return Mono.error(new RuntimeException("Token validation failed: " + verification.error()));
+            }
+            default -> {
+                log.debug("Local token verification inconclusive: {}", verification.error());
+                return inFlight.computeIfAbsent(digest, key -> fetchClaims(token, key));
+            }
+        }
+    }
+
+    private Mono<Map<String, Object>> fetchClaims(String token, TokenDigest digest) {
+        remoteValidations.increment();
+        AtomicReference<Mono<Map<String, Object>>> self = new AtomicReference<>();
+        Mono<Map<String, Object>> shared = Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return callGuard.call(() -> batchEnabled ? validateInBatch(token) : callValidateToken(token))
+                            .doOnSuccess(response -> remoteSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                            .doOnError(e -> remoteFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                })
+                .map(response -> {
+                    // Преобразуем UserResponse в Map
+                    Map<String, Object> claims = new HashMap<>();
+                    claims.put("id", response.getId());
+                    claims.put("name", response.getName());
+                    claims.put("email", response.getEmail());
+                    claims.put("roles", response.getRolesList());
+
+                    // Кэшируем результат не дольше срока жизни токена
+                    if (response.getExpiresAt() == 0 || response.getExpiresAt() > System.currentTimeMillis()) {
+                        validationCache.put(digest, new CachedValidation(
+                                Map.copyOf(claims), response.getExpiresAt(), response.getTokenId()));
+                    }
+                    return claims;
+                })
+                // Недоступность auth-service не означает невалидный токен, её отличает фильтр
+                .onErrorResume(e -> Mono.error(e instanceof AuthServiceUnavailableException
+                        ? e
+                        : new RuntimeException("Token validation failed: " + e.getMessage())))
+                // Поздний подписчик на отменённый вызов запускает RPC заново; убираем только свою запись,
+                // а не более новый вызов по тому же токену
+                .doFinally(signal -> inFlight.remove(digest, self.get()))
+                // RPC отменяется, только когда отписались все ожидающие
+                .flux()
+                .replay(1)
+                .refCount()
+                .next();
+        self.set(shared);
+        return shared;
+    }
+
+    // Очередь пакетов закрыта — проверяем токен отдельным вызовом
+    private Mono<UserResponse> validateInBatch(String token) {
+        return batcher.validate(token)
+                .onErrorResume(RejectedExecutionException.class, e -> {
+                    batchRejections.increment();
+                    return callValidateToken(token);
+                });
+    }
+
+    // Асинхронный вызов без блокировки потоков event loop; отмена подписки отменяет RPC
+    private Mono<UserResponse> callValidateToken(String token) {
+        return Mono.create(sink -> {
             TokenRequest request = TokenRequest.newBuilder()
                     .setToken(token)
                     .build();
-            UserResponse response = authServiceStub.validateToken(request);
-
-            // Преобразуем UserResponse в Map
-            Map<String, Object> claims = new HashMap<>();
-            claims.put("id", response.getId());
-            claims.put("name", response.getName());
-            claims.put("email", response.getEmail());
-            claims.put("roles", response.getRolesList());
-            return claims;
-        }).onErrorResume(e -> Mono.error(new RuntimeException("Token validation failed: " + e.getMessage())));
+            ListenableFuture<UserResponse> future = authServiceStub
+                    .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                    .validateToken(request);
+            sink.onCancel(() -> future.cancel(true));
+            Futures.addCallback(future, new FutureCallback<>() {
+                @Override
+                public void onSuccess(UserResponse response) {
+                    sink.success(response);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    sink.error(t);
+                }
+            }, MoreExecutors.directExecutor());
+        });
+    }
+
+    private static Counter validationCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("gateway.auth.validations")
+                .description("Token validations by the place where they were resolved")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private Timer grpcTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("gateway.auth.grpc.validation")
+                .description("Latency of token validation calls to auth-service")
+                .tag("mode", batchEnabled ? "batch" : "unary")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record CachedValidation(Map<String, Object> claims, long expiresAt, String tokenId) {
+    }
+
+    // TTL записи: до истечения токена, но не больше max-ttl
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<TokenDigest, CachedValidation> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, CachedValidation value, long currentTime) {
+            if (value.expiresAt() == 0) {
+                return maxTtlNanos;
+            }
+            long remaining = Duration.ofMillis(value.expiresAt() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, CachedValidation value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, CachedValidation value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
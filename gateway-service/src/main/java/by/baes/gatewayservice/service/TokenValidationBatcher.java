@@ -0,0 +1,128 @@
+package by.baes.gatewayservice.service;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.TokenBatchRequest;
+import by.baes.auth.grpc.TokenBatchResponse;
+import by.baes.auth.grpc.TokenResult;
+import by.baes.auth.grpc.UserResponse;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Собирает проверки токенов, пришедшие в течение короткого окна (или до max-size штук),
+ * и отправляет их в auth-service одним вызовом ValidateTokens.
+ * Очередь принимает проверки с любого числа потоков без ожидания; если она уже закрыта,
+ * validate сразу завершается RejectedExecutionException, и вызывающий проверяет токен отдельным вызовом.
+ */
+@Component
+@Slf4j
+public class TokenValidationBatcher {
+
+    @GrpcClient("auth-service")
+    private AuthServiceGrpc.AuthServiceFutureStub authServiceStub;
+
+    private final Duration deadline;
+    // Sinks.many() сериализует эмиссию и при одновременной постановке с двух потоков отвечает FAIL_NON_SERIALIZED.
+    // Unicast на MPSC-очереди безопасен для многих производителей: offer неблокирующий, а выдачу подписчику
+    // выполняет один поток за раз
+    private final Sinks.Many<PendingValidation> queue = Sinks.unsafe().many().unicast()
+            .onBackpressureBuffer(Queues.<PendingValidation>unboundedMultiproducer().get());
+    private final Disposable subscription;
+
+    public TokenValidationBatcher(@Value("${gateway.auth.grpc.batch.max-size:64}") int maxSize,
+                                  @Value("${gateway.auth.grpc.batch.window:2ms}") Duration window,
+                                  @Value("${gateway.auth.grpc.batch.deadline:${gateway.auth.grpc.deadline:2s}}") Duration deadline) {
+        this.deadline = deadline;
+        this.subscription = queue.asFlux()
+                .bufferTimeout(maxSize, window)
+                .subscribe(this::sendBatch);
+    }
+
+    // Вызывается на потоках event loop, поэтому без ожидания и повторов
+    public Mono<UserResponse> validate(String token) {
+        return Mono.defer(() -> {
+            PendingValidation pending = new PendingValidation(token);
+            Sinks.EmitResult emitResult = queue.tryEmitNext(pending);
+            if (emitResult.isFailure()) {
+                return Mono.error(new RejectedExecutionException("Token validation batch queue rejected request: " + emitResult));
+            }
+            return pending.result.asMono().doOnCancel(pending::cancel);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscription.dispose();
+    }
+
+    private void sendBatch(List<PendingValidation> queued) {
+        // Отменённые до отправки проверки в вызов не попадают
+        List<PendingValidation> batch = queued.stream().filter(pending -> !pending.cancelled).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        TokenBatchRequest.Builder request = TokenBatchRequest.newBuilder();
+        for (PendingValidation pending : batch) {
+            request.addTokens(pending.token);
+        }
+        log.debug("Sending batch of {} token validations", batch.size());
+        Futures.addCallback(authServiceStub
+                .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .validateTokens(request.build()), new FutureCallback<>() {
+            @Override
+            public void onSuccess(TokenBatchResponse response) {
+                for (int i = 0; i < batch.size(); i++) {
+                    Sinks.One<UserResponse> result = batch.get(i).result;
+                    if (i >= response.getResultsCount()) {
+                        result.tryEmitError(Status.INTERNAL.withDescription("Missing result in batch response").asRuntimeException());
+                        continue;
+                    }
+                    TokenResult tokenResult = response.getResults(i);
+                    if (tokenResult.hasUser()) {
+                        result.tryEmitValue(tokenResult.getUser());
+                    } else {
+                        result.tryEmitError(Status.INVALID_ARGUMENT.withDescription(tokenResult.getError()).asRuntimeException());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                for (PendingValidation pending : batch) {
+                    pending.result.tryEmitError(t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static final class PendingValidation {
+
+        private final String token;
+        private final Sinks.One<UserResponse> result = Sinks.one();
+        private volatile boolean cancelled;
+
+        PendingValidation(String token) {
+            this.token = token;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package by.baes.gatewayservice.config;
+
+import by.baes.identity.IdentitySigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Настройки читаются из application.yml и application-dev.yml, как при запуске сервиса
+class IdentityHeaderConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            // Для ttl: 30s, как в SpringApplication
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+            .withUserConfiguration(IdentityHeaderConfig.class);
+
+    @Test
+    void refusesToStartWithoutSecret() {
+        assumeTrue(System.getenv("IDENTITY_HEADER_SECRET") == null);
+
+        contextRunner.run(context -> assertThat(context).hasFailed()
+                .getFailure().rootCause().hasMessageContaining("IDENTITY_HEADER_SECRET"));
+    }
+
+    @Test
+    void usesDevelopmentSecretOnlyInDevProfile() {
+        contextRunner.withPropertyValues("spring.profiles.active=dev")
+                .run(context -> assertThat(context).hasSingleBean(IdentitySigner.class));
+    }
+}
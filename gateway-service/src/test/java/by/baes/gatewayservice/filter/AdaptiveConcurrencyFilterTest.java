@@ -0,0 +1,91 @@
+package by.baes.gatewayservice.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyFilter factory = new AdaptiveConcurrencyFilter(meterRegistry);
+
+    @Test
+    void shedsRequestsOverLimitInsteadOfQueueing() {
+        GatewayFilter filter = filter(AdaptiveConcurrencyFilter.Algorithm.GRADIENT, 10);
+        // Бэкенд отвечает, только когда его отпустят
+        Sinks.Empty<Void> backend = Sinks.empty();
+        GatewayFilterChain slowBackend = exchange -> backend.asMono();
+
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<Mono<Void>> inFlight = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            MockServerWebExchange exchange = exchange();
+            exchanges.add(exchange);
+            inFlight.add(filter.filter(exchange, slowBackend).cache());
+            inFlight.get(i).subscribe();
+        }
+
+        // Лишние запросы уже получили ответ, не дожидаясь освобождения слотов
+        assertThat(exchanges).filteredOn(exchange -> exchange.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .hasSize(40);
+        assertThat(meterRegistry.get("gateway.concurrency.in-flight").tag("route", "auth-service").gauge().value())
+                .isEqualTo(10);
+
+        backend.tryEmitEmpty();
+        Mono.when(inFlight).block(Duration.ofSeconds(5));
+
+        assertThat(exchanges).filteredOn(exchange -> exchange.getResponse().getStatusCode() == null).hasSize(10);
+        assertThat(meterRegistry.get("gateway.concurrency.shed").tag("route", "auth-service").counter().count())
+                .isEqualTo(40);
+        assertThat(meterRegistry.get("gateway.concurrency.in-flight").tag("route", "auth-service").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void releasesSlotOnErrorAndCancel() {
+        GatewayFilter filter = filter(AdaptiveConcurrencyFilter.Algorithm.VEGAS, 1);
+
+        MockServerWebExchange failed = exchange();
+        filter.filter(failed, exchange -> Mono.error(new IllegalStateException("backend failed")))
+                .onErrorResume(e -> Mono.empty())
+                .block();
+        filter.filter(exchange(), exchange -> Mono.never()).subscribe().dispose();
+
+        MockServerWebExchange next = exchange();
+        filter.filter(next, exchange -> Mono.empty()).block();
+        assertThat(status(next)).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.get("gateway.concurrency.limit").tag("route", "auth-service").gauge().value())
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    private GatewayFilter filter(AdaptiveConcurrencyFilter.Algorithm algorithm, int initialLimit) {
+        AdaptiveConcurrencyFilter.Config config = new AdaptiveConcurrencyFilter.Config();
+        config.setRouteId("auth-service");
+        config.setAlgorithm(algorithm);
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(1);
+        return factory.apply(config);
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/auth/users"));
+    }
+
+    private static HttpStatusCode status(MockServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? status : HttpStatus.OK;
+    }
+}
@@ -0,0 +1,42 @@
+package by.baes.gatewayservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutePolicyTest {
+
+    @Test
+    void matchesExcludedPrefixes() {
+        RoutePolicy policy = RoutePolicy.compile(" /auth/login, /auth/register ,/auth/log, /v3", null);
+
+        assertThat(policy.isExcluded("/auth/login")).isTrue();
+        assertThat(policy.isExcluded("/auth/logout")).isTrue();
+        assertThat(policy.isExcluded("/auth/register/confirm")).isTrue();
+        assertThat(policy.isExcluded("/v3/api-docs")).isTrue();
+        assertThat(policy.isExcluded("/auth/lo")).isFalse();
+        assertThat(policy.isExcluded("/auth/users")).isFalse();
+        assertThat(policy.isExcluded("/")).isFalse();
+        assertThat(policy.isExcluded("/z")).isFalse();
+    }
+
+    @Test
+    void emptyConfigExcludesNothingAndAllowsAnyRole() {
+        RoutePolicy policy = RoutePolicy.compile("  ", null);
+
+        assertThat(policy.isExcluded("/auth/login")).isFalse();
+        assertThat(policy.isAuthorized(null)).isTrue();
+    }
+
+    @Test
+    void requiresAnyOfConfiguredRoles() {
+        RoutePolicy policy = RoutePolicy.compile(null, "ADMIN, DISPATCHER");
+
+        assertThat(policy.isAuthorized(List.of("USER", "DISPATCHER"))).isTrue();
+        assertThat(policy.isAuthorized(List.of("USER"))).isFalse();
+        assertThat(policy.isAuthorized(List.of())).isFalse();
+        assertThat(policy.isAuthorized(null)).isFalse();
+    }
+}
@@ -0,0 +1,116 @@
+package by.baes.gatewayservice.filter;
+
+import by.baes.gatewayservice.exception.AuthServiceUnavailableException;
+import by.baes.gatewayservice.service.GrpcAuthService;
+import by.baes.identity.Identity;
+import by.baes.identity.IdentityHeader;
+import by.baes.identity.IdentitySigner;
+import by.baes.identity.IdentityVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenValidationFilterTest {
+
+    private static final byte[] SECRET = "identity-header-secret-for-tests-0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GrpcAuthService grpcAuthService = mock(GrpcAuthService.class);
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        TokenValidationFilter.Config config = new TokenValidationFilter.Config();
+        config.setRouteId("auth-service");
+        config.setExcludePaths("/auth/login");
+        config.setRoles("ADMIN");
+        IdentitySigner signer = new IdentitySigner(1, SECRET, Duration.ofSeconds(30));
+        filter = new TokenValidationFilter(grpcAuthService, signer, meterRegistry).apply(config);
+    }
+
+    @Test
+    void recordsOutcomePerRoute() {
+        when(grpcAuthService.validateToken(anyString())).thenAnswer(invocation -> {
+            String token = invocation.getArgument(0);
+            return switch (token) {
+                case "admin" -> Mono.just(claims(1L, "admin", List.of("ADMIN")));
+                case "user" -> Mono.just(claims(2L, "user", List.of("USER")));
+                case "outage" -> Mono.error(new AuthServiceUnavailableException("auth-service circuit breaker is open", null));
+                default -> Mono.error(new RuntimeException("Token validation failed: invalid"));
+            };
+        });
+
+        assertThat(run("/auth/login", null)).isNull();
+        assertThat(run("/auth/users", "admin")).isNull();
+        assertThat(run("/auth/users", "user")).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(run("/auth/users", "broken")).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(run("/auth/users", null)).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(run("/auth/users", "outage")).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThat(count("excluded")).isEqualTo(1);
+        assertThat(count("allowed")).isEqualTo(1);
+        assertThat(count("forbidden")).isEqualTo(1);
+        assertThat(count("unauthorized")).isEqualTo(2);
+        assertThat(count("unavailable")).isEqualTo(1);
+    }
+
+    @Test
+    void forwardsSignedIdentityInsteadOfClaimHeaders() {
+        when(grpcAuthService.validateToken("admin")).thenReturn(Mono.just(claims(7L, "admin", List.of("ADMIN", "USER"))));
+
+        assertThat(run("/auth/users", "admin")).isNull();
+
+        HttpHeaders headers = forwarded.get().getRequest().getHeaders();
+        Identity identity = new IdentityVerifier(Map.of(1, SECRET)).verify(headers.getFirst(IdentityHeader.NAME));
+        assertThat(identity.id()).isEqualTo(7L);
+        assertThat(identity.name()).isEqualTo("admin");
+        assertThat(identity.roles()).containsExactly("ADMIN", "USER");
+        assertThat(headers.keySet()).noneMatch(name -> name.startsWith("X-Auth-"));
+    }
+
+    private static Map<String, Object> claims(long id, String name, List<String> roles) {
+        return Map.of("id", id, "name", name, "email", name + "@example.com", "roles", roles);
+    }
+
+    private HttpStatus run(String path, String token) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block();
+        return (HttpStatus) exchange.getResponse().getStatusCode();
+    }
+
+    private long count(String outcome) {
+        return meterRegistry.get("gateway.auth.filter")
+                .tag("route", "auth-service")
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,118 @@
+package by.baes.gatewayservice.filter;
+
+import by.baes.identity.Identity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserRateLimitFilter factory = new UserRateLimitFilter(meterRegistry, Duration.ofMinutes(5));
+
+    @AfterEach
+    void tearDown() {
+        factory.shutdown();
+    }
+
+    @Test
+    void rejectsBurstOverCapacityPerUser() {
+        GatewayFilter filter = filter(1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(run(filter, user(1)).getResponse().getStatusCode()).isNull();
+        }
+        MockServerWebExchange rejected = run(filter, user(1));
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        // У другого пользователя свой бакет
+        assertThat(run(filter, user(2)).getResponse().getStatusCode()).isNull();
+        assertThat(meterRegistry.get("gateway.rate-limit.rejected").tag("route", "photos3-service").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToClientAddressWithoutUser() {
+        GatewayFilter filter = filter(1, 1);
+
+        assertThat(run(filter, anonymous("10.0.0.1")).getResponse().getStatusCode()).isNull();
+        assertThat(run(filter, anonymous("10.0.0.1")).getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(run(filter, anonymous("10.0.0.2")).getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void evictsOnlyIdleBuckets() {
+        UserRateLimitFilter shortIdle = new UserRateLimitFilter(meterRegistry, Duration.ofMillis(50));
+        try {
+            UserRateLimitFilter.Config config = new UserRateLimitFilter.Config();
+            config.setRouteId("auth-service");
+            config.setReplenishRate(0.1);
+            GatewayFilter filter = shortIdle.apply(config);
+
+            run(filter, user(1));
+            shortIdle.evictIdleBuckets();
+            // Бакет ещё не восстановился (10 с на токен), удалять его нельзя
+            assertThat(shortIdle.bucketCount()).isEqualTo(1);
+        } finally {
+            shortIdle.shutdown();
+        }
+
+        GatewayFilter filter = filter(1000, 1);
+        run(filter, user(1));
+        run(filter, user(2));
+        factory.evictIdleBuckets();
+        assertThat(factory.bucketCount()).isEqualTo(2);
+    }
+
+    @Test
+    void tokenBucketRefillsAtConfiguredRate() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket bucket = TokenBucket.of(2, 2, 0);
+
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(second / 2);
+        assertThat(bucket.tryAcquire(second / 2)).isZero();
+        assertThat(bucket.isIdle(second, second)).isFalse();
+        assertThat(bucket.isIdle(3 * second, second)).isTrue();
+    }
+
+    private GatewayFilter filter(double replenishRate, int burstCapacity) {
+        UserRateLimitFilter.Config config = new UserRateLimitFilter.Config();
+        config.setRouteId("photos3-service");
+        config.setReplenishRate(replenishRate);
+        config.setBurstCapacity(burstCapacity);
+        return factory.apply(config);
+    }
+
+    private static MockServerWebExchange user(long id) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/photos/a.png"));
+        exchange.getAttributes().put(TokenValidationFilter.IDENTITY_ATTRIBUTE,
+                new Identity(id, "user-" + id, "", List.of("USER"), 0));
+        return exchange;
+    }
+
+    private static MockServerWebExchange anonymous(String address) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/auth/login")
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+    }
+
+    private static MockServerWebExchange run(GatewayFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, e -> Mono.empty()).block();
+        return exchange;
+    }
+}
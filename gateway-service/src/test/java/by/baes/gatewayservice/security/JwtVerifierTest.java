@@ -0,0 +1,126 @@
+package by.baes.gatewayservice.security;
+
+import by.baes.auth.grpc.SigningKey;
+import com.google.protobuf.ByteString;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtVerifierTest {
+
+    private static final KeyPair KEY_PAIR = generateKeyPair();
+
+    // Без gRPC-заглушки: внеплановая загрузка ключей не чаще раза в сутки
+    private final JwtVerifier verifier = new JwtVerifier(Duration.ofMinutes(5), Duration.ofDays(1), Duration.ofSeconds(5));
+
+    @BeforeEach
+    void setUp() {
+        verifier.updateKeys(List.of(SigningKey.newBuilder()
+                .setKeyId("key-1")
+                .setAlgorithm("RS256")
+                .setPublicKey(ByteString.copyFrom(KEY_PAIR.getPublic().getEncoded()))
+                .build()));
+    }
+
+    @Test
+    void verifiesTokenSignedWithKnownKey() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String token = token("key-1", new Date(expiresAt));
+
+        JwtVerifier.Verification verification = verifier.verify(token);
+
+        assertThat(verification.status()).isEqualTo(JwtVerifier.Status.VERIFIED);
+        assertThat(verification.claims())
+                .containsEntry("id", 42L)
+                .containsEntry("name", "alice")
+                .containsEntry("email", "alice@example.com")
+                .containsEntry("roles", List.of("ADMIN", "USER"));
+        assertThat(verification.expiresAt()).isEqualTo(expiresAt / 1000 * 1000);
+        assertThat(verification.tokenId()).isEqualTo("token-1");
+    }
+
+    @Test
+    void verifiesEllipticCurveToken() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ecKeyPair = generator.generateKeyPair();
+        verifier.updateKeys(List.of(SigningKey.newBuilder()
+                .setKeyId("ec-1")
+                .setAlgorithm("ES256")
+                .setPublicKey(ByteString.copyFrom(ecKeyPair.getPublic().getEncoded()))
+                .build()));
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "ec-1")
+                .setSubject("alice")
+                .claim("id", 42)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.ES256, ecKeyPair.getPrivate())
+                .compact();
+
+        assertThat(verifier.verify(token).status()).isEqualTo(JwtVerifier.Status.VERIFIED);
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = token("key-1", new Date(System.currentTimeMillis() - 1_000));
+
+        assertThat(verifier.verify(token).status()).isEqualTo(JwtVerifier.Status.INVALID);
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = token("key-1", new Date(System.currentTimeMillis() + 60_000));
+        String[] parts = token.split("\\.");
+        String forged = Jwts.builder().setSubject("mallory").setHeaderParam(JwsHeader.KEY_ID, "key-1")
+                .signWith(SignatureAlgorithm.HS512, "x".getBytes(StandardCharsets.UTF_8)).compact().split("\\.")[1];
+
+        assertThat(verifier.verify(parts[0] + "." + forged + "." + parts[2]).status())
+                .isEqualTo(JwtVerifier.Status.INVALID);
+    }
+
+    @Test
+    void isInconclusiveForUnknownKeyOrSharedSecret() {
+        String unknownKey = token("key-2", new Date(System.currentTimeMillis() + 60_000));
+        String hmac = Jwts.builder().setSubject("alice")
+                .signWith(SignatureAlgorithm.HS512, "secret".getBytes(StandardCharsets.UTF_8)).compact();
+
+        assertThat(verifier.verify(unknownKey).status()).isEqualTo(JwtVerifier.Status.INCONCLUSIVE);
+        assertThat(verifier.verify(hmac).status()).isEqualTo(JwtVerifier.Status.INCONCLUSIVE);
+    }
+
+    private static String token(String keyId, Date expiration) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyId)
+                .setSubject("alice")
+                .claim("id", 42)
+                .claim("email", "alice@example.com")
+                .claim("roles", List.of("ADMIN", "USER"))
+                .setId("token-1")
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.RS256, KEY_PAIR.getPrivate())
+                .compact();
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package by.baes.gatewayservice.security;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.Revocation;
+import by.baes.auth.grpc.RevocationsRequest;
+import by.baes.auth.grpc.RevocationsResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevokedTokensTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Revocation> journal = new CopyOnWriteArrayList<>();
+    private final List<String> cursors = new CopyOnWriteArrayList<>();
+    private volatile boolean available = true;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new JournalAuthService())
+                .directExecutor()
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void suspectsEveryTokenUntilFirstSync() {
+        RevokedTokens revokedTokens = createRevokedTokens(Duration.ofHours(1));
+
+        assertThat(revokedTokens.mightBeRevoked("token")).isTrue();
+        // Без jti отзыв невозможен
+        assertThat(revokedTokens.mightBeRevoked("")).isFalse();
+        assertThat(revokedTokens.mightBeRevoked(null)).isFalse();
+
+        available = false;
+        revokedTokens.sync().join();
+        assertThat(revokedTokens.mightBeRevoked("token")).isTrue();
+    }
+
+    @Test
+    void followsJournalAcrossPages() {
+        RevokedTokens revokedTokens = createRevokedTokens(Duration.ofHours(1));
+        IntStream.range(0, PAGE_SIZE * 2 + 3).forEach(i -> revoke("token-" + i, 60_000));
+
+        revokedTokens.sync().join();
+        assertThat(revokedTokens.mightBeRevoked("token-" + (PAGE_SIZE * 2 + 2))).isTrue();
+        assertThat(revokedTokens.mightBeRevoked("active")).isFalse();
+
+        revoke("late", 60_000);
+        revokedTokens.sync().join();
+        assertThat(revokedTokens.mightBeRevoked("late")).isTrue();
+    }
+
+    @Test
+    void keepsFilterWhenSyncFails() {
+        RevokedTokens revokedTokens = createRevokedTokens(Duration.ZERO);
+        revoke("revoked", 60_000);
+        revokedTokens.sync().join();
+
+        available = false;
+        revokedTokens.sync().join();
+
+        assertThat(revokedTokens.mightBeRevoked("revoked")).isTrue();
+        assertThat(revokedTokens.mightBeRevoked("active")).isFalse();
+    }
+
+    @Test
+    void skipsExpiredRevocations() {
+        RevokedTokens revokedTokens = createRevokedTokens(Duration.ofHours(1));
+        revoke("expired", -1);
+
+        revokedTokens.sync().join();
+
+        assertThat(revokedTokens.mightBeRevoked("expired")).isFalse();
+    }
+
+    @Test
+    void growsFilterOnceJournalExceedsExpectedInsertions() {
+        RevokedTokens revokedTokens = createRevokedTokens(Duration.ofHours(1), 20);
+        IntStream.range(0, 50).forEach(i -> revoke("token-" + i, 60_000));
+        revokedTokens.sync().join();
+        // Первый фильтр переполнен: одна пересборка с ёмкостью по наблюдаемому числу отзывов
+        revokedTokens.sync().join();
+        assertThat(fullScans()).isEqualTo(2);
+
+        revoke("late", 60_000);
+        revokedTokens.sync().join();
+        revokedTokens.sync().join();
+
+        assertThat(fullScans()).isEqualTo(2);
+        assertThat(revokedTokens.mightBeRevoked("late")).isTrue();
+        assertThat(revokedTokens.mightBeRevoked("token-49")).isTrue();
+        assertThat(revokedTokens.mightBeRevoked("active")).isFalse();
+    }
+
+    private long fullScans() {
+        return cursors.stream().filter(String::isEmpty).count();
+    }
+
+    private RevokedTokens createRevokedTokens(Duration rebuildInterval) {
+        return createRevokedTokens(rebuildInterval, 1000);
+    }
+
+    private RevokedTokens createRevokedTokens(Duration rebuildInterval, int expectedInsertions) {
+        RevokedTokens revokedTokens = new RevokedTokens(Duration.ofSeconds(2), rebuildInterval, expectedInsertions, 0.001,
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revokedTokens, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return revokedTokens;
+    }
+
+    private void revoke(String tokenId, long expiresInMillis) {
+        journal.add(Revocation.newBuilder()
+                .setTokenId(tokenId)
+                .setExpiresAt(System.currentTimeMillis() + expiresInMillis)
+                .build());
+    }
+
+    // Журнал страницами по PAGE_SIZE, курсор — число отданных записей
+    private class JournalAuthService extends AuthServiceGrpc.AuthServiceImplBase {
+
+        @Override
+        public void getRevocations(RevocationsRequest request, StreamObserver<RevocationsResponse> responseObserver) {
+            if (!available) {
+                responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                return;
+            }
+            cursors.add(request.getCursor());
+            int from = request.getCursor().isEmpty() ? 0 : Integer.parseInt(request.getCursor());
+            List<Revocation> page = journal.subList(Math.min(from, journal.size()), Math.min(from + PAGE_SIZE, journal.size()));
+            responseObserver.onNext(RevocationsResponse.newBuilder()
+                    .addAllRevocations(page)
+                    .setCursor(Integer.toString(from + page.size()))
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+}
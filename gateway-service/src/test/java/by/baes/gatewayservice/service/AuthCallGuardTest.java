@@ -0,0 +1,196 @@
+package by.baes.gatewayservice.service;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.TokenRequest;
+import by.baes.auth.grpc.UserResponse;
+import by.baes.gatewayservice.exception.AuthServiceUnavailableException;
+import by.baes.gatewayservice.security.JwtVerifier;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class AuthCallGuardTest {
+
+    private static final Duration FAST = Duration.ofMillis(5);
+    private static final Duration SLOW = Duration.ofMillis(300);
+    private static final int VALIDATIONS = 60;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    // Задержка и ответ сервера по номеру вызова; null — не отвечать совсем
+    private volatile IntFunction<Duration> latency = call -> FAST;
+    private volatile Status failure;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new LatencyInjectingAuthService())
+                .executor(scheduler)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingAuthService() {
+        failure = Status.UNAVAILABLE.withDescription("auth-service is down");
+        AuthCallGuard guard = createGuard(false);
+        GrpcAuthService service = createService(guard, Duration.ofSeconds(2));
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(service.validateToken(legacyToken("down-" + i)))
+                    .expectError(AuthServiceUnavailableException.class)
+                    .verify(Duration.ofSeconds(5));
+        }
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        failure = null;
+        StepVerifier.create(service.validateToken(legacyToken("open")))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(AuthServiceUnavailableException.class)
+                        .hasCauseInstanceOf(CallNotPermittedException.class))
+                .verify(Duration.ofSeconds(5));
+        assertThat(calls.get()).isEqualTo(5);
+    }
+
+    @Test
+    void invalidTokensDoNotOpenCircuit() {
+        failure = Status.INVALID_ARGUMENT.withDescription("Invalid JWT token");
+        AuthCallGuard guard = createGuard(false);
+        GrpcAuthService service = createService(guard, Duration.ofSeconds(2));
+
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(service.validateToken(legacyToken("invalid-" + i)))
+                    .expectErrorSatisfies(e -> assertThat(e).isNotInstanceOf(AuthServiceUnavailableException.class))
+                    .verify(Duration.ofSeconds(5));
+        }
+
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void deadlineExceededIsReportedAsUnavailable() {
+        latency = call -> null;
+        GrpcAuthService service = createService(createGuard(false), Duration.ofMillis(100));
+
+        StepVerifier.create(service.validateToken(legacyToken("hanging")))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(AuthServiceUnavailableException.class)
+                        .hasMessageContaining("DEADLINE_EXCEEDED"))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void hedgingCutsTailLatency() {
+        // Каждый десятый вызов «зависает» на SLOW
+        latency = call -> call % 10 == 0 ? SLOW : FAST;
+
+        List<Long> plain = measure(createService(createGuard(false), Duration.ofSeconds(2)), "plain-");
+        calls.set(0);
+        List<Long> hedged = measure(createService(createGuard(true), Duration.ofSeconds(2)), "hedged-");
+
+        log.info("{} validations, every 10th call {} ms: max latency without hedging {} ms, with hedging {} ms",
+                VALIDATIONS, SLOW.toMillis(), plain.get(plain.size() - 1), hedged.get(hedged.size() - 1));
+        assertThat(plain.get(plain.size() - 1)).isGreaterThanOrEqualTo(SLOW.toMillis());
+        assertThat(hedged.get(hedged.size() - 1)).isLessThan(SLOW.toMillis() / 2);
+    }
+
+    private List<Long> measure(GrpcAuthService service, String prefix) {
+        return Flux.range(0, VALIDATIONS)
+                .concatMap(i -> {
+                    String token = legacyToken(prefix + i);
+                    long start = System.nanoTime();
+                    return service.validateToken(token)
+                            .map(claims -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                })
+                .collectSortedList()
+                .block(Duration.ofMinutes(1));
+    }
+
+    private AuthCallGuard createGuard(boolean hedgingEnabled) {
+        return new AuthCallGuard(50, Duration.ofSeconds(1), 10, 5, Duration.ofMinutes(1),
+                hedgingEnabled, Duration.ofMillis(20), new SimpleMeterRegistry());
+    }
+
+    private GrpcAuthService createService(AuthCallGuard guard, Duration deadline) {
+        JwtVerifier jwtVerifier = new JwtVerifier(Duration.ofMinutes(5), Duration.ofDays(1), Duration.ofSeconds(5));
+        GrpcAuthService service = new GrpcAuthService(jwtVerifier, GrpcAuthServiceTest.createRevokedTokens(channel),
+                new TokenValidationBatcher(64, Duration.ofMillis(2), deadline), guard,
+                1000, Duration.ofMinutes(5), deadline, false, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return service;
+    }
+
+    // HS512-токен нельзя проверить локально, поэтому он всегда уходит в auth-service
+    private static String legacyToken(String subject) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "legacy-secret".getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+
+    private class LatencyInjectingAuthService extends AuthServiceGrpc.AuthServiceImplBase {
+
+        @Override
+        public void validateToken(TokenRequest request, StreamObserver<UserResponse> responseObserver) {
+            Duration delay = latency.apply(calls.incrementAndGet());
+            if (delay == null) {
+                return;
+            }
+            Status status = failure;
+            scheduler.schedule(() -> {
+                if (status != null) {
+                    responseObserver.onError(status.asRuntimeException());
+                    return;
+                }
+                responseObserver.onNext(UserResponse.newBuilder()
+                        .setId(1)
+                        .setName(request.getToken())
+                        .addRoles("USER")
+                        .setExpiresAt(System.currentTimeMillis() + 60_000)
+                        .build());
+                responseObserver.onCompleted();
+            }, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package by.baes.gatewayservice.service;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.Revocation;
+import by.baes.auth.grpc.RevocationsRequest;
+import by.baes.auth.grpc.RevocationsResponse;
+import by.baes.auth.grpc.TokenRequest;
+import by.baes.auth.grpc.UserResponse;
+import by.baes.gatewayservice.security.JwtVerifier;
+import by.baes.gatewayservice.security.RevokedTokens;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class GrpcAuthServiceTest {
+
+    private static final Duration SERVER_LATENCY = Duration.ofMillis(100);
+    private static final int CONCURRENT_REQUESTS = 500;
+    private static final int BLOCKING_THREADS = 8;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final Set<String> invalidTokens = ConcurrentHashMap.newKeySet();
+    private final Set<String> revokedTokenIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean respond = true;
+    // Срок жизни токена в ответе auth-service относительно момента ответа
+    private volatile long expiresInMillis = 60_000;
+    private Server server;
+    private ManagedChannel channel;
+    private RevokedTokens revokedTokens;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new SlowAuthService())
+                .executor(scheduler)
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        revokedTokens = createRevokedTokens(channel);
+        // До первой загрузки журнала отзывов любой токен с jti уходит в auth-service
+        revokedTokens.sync().join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void validatesTokenAndCachesResult() {
+        GrpcAuthService service = createService(Duration.ofSeconds(2));
+        String token = legacyToken("user-1");
+
+        StepVerifier.create(service.validateToken(token))
+                .assertNext(claims -> {
+                    assertThat(claims).containsEntry("name", token);
+                    assertThat(claims).containsKey("roles");
+                })
+                .verifyComplete();
+        StepVerifier.create(service.validateToken(token))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cacheEntryExpiresWithToken() {
+        AtomicLong ticker = new AtomicLong();
+        GrpcAuthService service = createService(Duration.ofSeconds(2), Duration.ofMinutes(5), ticker::get, new SimpleMeterRegistry());
+        String token = legacyToken("user-expiring");
+
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        ticker.addAndGet(Duration.ofSeconds(55).toNanos());
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        assertThat(calls.get()).isEqualTo(1);
+
+        // Токен живёт 60 с, max-ttl 5 мин — запись уходит вместе с токеном
+        ticker.addAndGet(Duration.ofSeconds(6).toNanos());
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheEntryLivesNoLongerThanMaxTtl() {
+        AtomicLong ticker = new AtomicLong();
+        GrpcAuthService service = createService(Duration.ofSeconds(2), Duration.ofSeconds(10), ticker::get, new SimpleMeterRegistry());
+        String token = legacyToken("user-max-ttl");
+
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        ticker.addAndGet(Duration.ofSeconds(9).toNanos());
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        assertThat(calls.get()).isEqualTo(1);
+
+        ticker.addAndGet(Duration.ofSeconds(2).toNanos());
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotCacheAlreadyExpiredToken() {
+        expiresInMillis = -1_000;
+        GrpcAuthService service = createService(Duration.ofSeconds(2));
+        String token = legacyToken("user-expired");
+
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void registersCacheMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GrpcAuthService service = createService(Duration.ofSeconds(2), Duration.ofMinutes(5), Ticker.systemTicker(), meterRegistry);
+        String token = legacyToken("user-metrics");
+
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "tokenValidation").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "tokenValidation").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "tokenValidation").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void revalidatesCachedTokenAfterItIsRevoked() {
+        GrpcAuthService service = createService(Duration.ofSeconds(2));
+        String token = legacyToken("user-revoked");
+
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(service.validateToken(token)).expectNextCount(1).verifyComplete();
+        assertThat(calls.get()).isEqualTo(1);
+
+        revokedTokenIds.add(tokenId(token));
+        revokedTokens.sync().join();
+
+        StepVerifier.create(service.validateToken(token))
+                .expectErrorSatisfies(e -> assertThat(e).hasMessageContaining("revoked"))
+                .verify(Duration.ofSeconds(5));
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void coalescesConcurrentValidationsOfSameToken() {
+        GrpcAuthService service = createService(Duration.ofSeconds(2));
+
+        String token = legacyToken("user-shared");
+
+        Flux.range(0, 30)
+                .flatMap(i -> service.validateToken(token))
+                .as(StepVerifier::create)
+                .expectNextCount(30)
+                .verifyComplete();
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesFailureWithAllWaitersAndRetriesAfterwards() {
+        GrpcAuthService service = createService(Duration.ofSeconds(2));
+        String token = legacyToken("user-invalid");
+        invalidTokens.add(token);
+
+        Flux.range(0, 10)
+                .flatMap(i -> service.validateToken(token)
+                        .map(claims -> "ok")
+                        .onErrorReturn("failed"))
+                .as(StepVerifier::create)
+                .expectNext("failed", "failed", "failed", "failed", "failed",
+                        "failed", "failed", "failed", "failed", "failed")
+                .verifyComplete();
+        assertThat(calls.get()).isEqualTo(1);
+
+        // Ошибки не кэшируются
+        StepVerifier.create(service.validateToken(token))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void lateSubscriberToCancelledCallDoesNotEvictNewerCall() throws InterruptedException {
+        GrpcAuthService service = createService(Duration.ofSeconds(10));
+        String token = legacyToken("user-late");
+        invalidTokens.add(token);
+
+        respond = false;
+        Mono<Map<String, Object>> cancelledCall = service.validateToken(token);
+        Disposable cancelledSubscription = cancelledCall.subscribe(claims -> { }, e -> { });
+        awaitInFlight();
+        cancelledSubscription.dispose();
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Mono<Map<String, Object>> current = service.validateToken(token);
+        Disposable waiting = current.subscribe(claims -> { }, e -> { });
+        awaitInFlight();
+        respond = true;
+        // Подписка на отменённый вызов запускает RPC заново; его завершение не должно убрать текущий вызов
+        StepVerifier.create(cancelledCall).expectError().verify(Duration.ofSeconds(5));
+        // doFinally выполняется уже после того, как ошибка дошла до подписчика
+        Thread.sleep(100);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(service.validateToken(token)).isSameAs(current);
+        waiting.dispose();
+    }
+
+    @Test
+    void inFlightCapacityIsNotBoundByThreads() {
+        GrpcAuthService service = createService(Duration.ofSeconds(10));
+
+        // До: блокирующий stub в Mono.fromCallable на пуле фиксированного размера — одновременных вызовов не больше потоков.
+        // Время только в лог: сравнение производительности — дело JMH и нагрузочного стенда
+        AuthServiceGrpc.AuthServiceBlockingStub blockingStub = AuthServiceGrpc.newBlockingStub(channel);
+        Scheduler blockingPool = Schedulers.newParallel("blocking-baseline", BLOCKING_THREADS);
+        long blockingMillis;
+        try {
+            blockingMillis = measure(i -> Mono.fromCallable(() -> blockingStub.validateToken(
+                            TokenRequest.newBuilder().setToken("blocking-" + i).build()))
+                    .subscribeOn(blockingPool));
+        } finally {
+            blockingPool.dispose();
+        }
+        int blockingPeak = peakInFlight.getAndSet(0);
+
+        // После: асинхронный stub без блокировки потоков
+        String[] tokens = IntStream.range(0, CONCURRENT_REQUESTS).mapToObj(i -> legacyToken("async-" + i)).toArray(String[]::new);
+        long asyncMillis = measure(i -> service.validateToken(tokens[i]));
+        int asyncPeak = peakInFlight.get();
+
+        log.info("{} validations with {} ms server latency: blocking {} ms (peak in-flight {}), async {} ms (peak in-flight {})",
+                CONCURRENT_REQUESTS, SERVER_LATENCY.toMillis(), blockingMillis, blockingPeak, asyncMillis, asyncPeak);
+        assertThat(blockingPeak).isLessThanOrEqualTo(BLOCKING_THREADS);
+        assertThat(asyncPeak).isGreaterThan(BLOCKING_THREADS * 4);
+    }
+
+    @Test
+    void cancellingSubscriptionCancelsRpc() throws InterruptedException {
+        respond = false;
+        GrpcAuthService service = createService(Duration.ofSeconds(10));
+
+        Disposable subscription = service.validateToken(legacyToken("user-cancel")).subscribe();
+        awaitInFlight();
+        subscription.dispose();
+
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void failsWhenDeadlineExceeded() {
+        respond = false;
+        GrpcAuthService service = createService(Duration.ofMillis(100));
+
+        StepVerifier.create(service.validateToken(legacyToken("user-deadline")))
+                .expectErrorSatisfies(e -> assertThat(e).hasMessageContaining("DEADLINE_EXCEEDED"))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private GrpcAuthService createService(Duration deadline) {
+        return createService(deadline, Duration.ofMinutes(5), Ticker.systemTicker(), new SimpleMeterRegistry());
+    }
+
+    private GrpcAuthService createService(Duration deadline, Duration maxTtl, Ticker ticker, SimpleMeterRegistry meterRegistry) {
+        JwtVerifier jwtVerifier = new JwtVerifier(Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(jwtVerifier, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        GrpcAuthService service = new GrpcAuthService(jwtVerifier, revokedTokens,
+                new TokenValidationBatcher(64, Duration.ofMillis(2), deadline), createGuard(),
+                1000, maxTtl, deadline, false, meterRegistry, ticker);
+        ReflectionTestUtils.setField(service, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return service;
+    }
+
+    static RevokedTokens createRevokedTokens(ManagedChannel channel) {
+        RevokedTokens revokedTokens = new RevokedTokens(Duration.ofSeconds(2), Duration.ofHours(1), 1000, 0.001,
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revokedTokens, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return revokedTokens;
+    }
+
+    // Нагрузочные тесты не должны упираться в медленные вызовы circuit breaker
+    static AuthCallGuard createGuard() {
+        return new AuthCallGuard(50, Duration.ofSeconds(30), 100, 20, Duration.ofSeconds(10),
+                false, Duration.ofMillis(20), new SimpleMeterRegistry());
+    }
+
+    // HS512-токен нельзя проверить локально, поэтому он всегда уходит в auth-service
+    private static String legacyToken(String subject) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "legacy-secret".getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+
+    private static String tokenId(String token) {
+        return "jti-" + token.hashCode();
+    }
+
+    private long measure(IntFunction<Mono<?>> call) {
+        long start = System.nanoTime();
+        Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(call::apply, CONCURRENT_REQUESTS)
+                .blockLast(Duration.ofMinutes(1));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private class SlowAuthService extends AuthServiceGrpc.AuthServiceImplBase {
+
+        @Override
+        public void validateToken(TokenRequest request, StreamObserver<UserResponse> responseObserver) {
+            calls.incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            ((ServerCallStreamObserver<UserResponse>) responseObserver).setOnCancelHandler(() -> {
+                inFlight.decrementAndGet();
+                cancelled.countDown();
+            });
+            if (!respond) {
+                return;
+            }
+            // Задержка без занятия потока сервера
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                if (invalidTokens.contains(request.getToken())) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Invalid JWT token").asRuntimeException());
+                    return;
+                }
+                if (revokedTokenIds.contains(tokenId(request.getToken()))) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("Token has been revoked").asRuntimeException());
+                    return;
+                }
+                responseObserver.onNext(UserResponse.newBuilder()
+                        .setId(1)
+                        .setName(request.getToken())
+                        .addRoles("USER")
+                        .setExpiresAt(System.currentTimeMillis() + expiresInMillis)
+                        .setTokenId(tokenId(request.getToken()))
+                        .build());
+                responseObserver.onCompleted();
+            }, SERVER_LATENCY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // Весь журнал одной страницей, курсор — число отданных записей
+        @Override
+        public void getRevocations(RevocationsRequest request, StreamObserver<RevocationsResponse> responseObserver) {
+            int from = request.getCursor().isEmpty() ? 0 : Integer.parseInt(request.getCursor());
+            RevocationsResponse.Builder response = RevocationsResponse.newBuilder();
+            revokedTokenIds.stream().skip(from).forEach(tokenId -> response.addRevocations(Revocation.newBuilder()
+                    .setTokenId(tokenId)
+                    .setExpiresAt(System.currentTimeMillis() + 60_000)));
+            responseObserver.onNext(response.setCursor(Integer.toString(from + response.getRevocationsCount())).build());
+            responseObserver.onCompleted();
+        }
+    }
+}
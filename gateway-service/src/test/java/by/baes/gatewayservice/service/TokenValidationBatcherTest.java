@@ -0,0 +1,258 @@
+package by.baes.gatewayservice.service;
+
+import by.baes.auth.grpc.AuthServiceGrpc;
+import by.baes.auth.grpc.TokenBatchRequest;
+import by.baes.auth.grpc.TokenBatchResponse;
+import by.baes.auth.grpc.TokenRequest;
+import by.baes.auth.grpc.TokenResult;
+import by.baes.auth.grpc.UserResponse;
+import by.baes.gatewayservice.security.JwtVerifier;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class TokenValidationBatcherTest {
+
+    private static final int VALIDATIONS = 20_000;
+    private static final int CONCURRENCY = 256;
+    private static final Duration DEADLINE = Duration.ofSeconds(10);
+
+    private final AtomicInteger rpcCalls = new AtomicInteger();
+    private final AtomicInteger unaryCalls = new AtomicInteger();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = NettyServerBuilder.forPort(0)
+                .addService(new EchoAuthService())
+                .build()
+                .start();
+        channel = NettyChannelBuilder.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))
+                .usePlaintext()
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void deliversPerTokenResultsAndErrors() {
+        TokenValidationBatcher batcher = createBatcher(8, Duration.ofMillis(50));
+
+        Flux.just("user-1", "invalid-1", "user-2")
+                .flatMap(token -> batcher.validate(token)
+                        .map(UserResponse::getName)
+                        .onErrorResume(e -> Mono.just("error:" + Status.fromThrowable(e).getDescription())))
+                .collectList()
+                .as(StepVerifier::create)
+                .assertNext(results -> assertThat(results)
+                        .containsExactlyInAnyOrder("user-1", "user-2", "error:Invalid JWT token"))
+                .verifyComplete();
+
+        assertThat(rpcCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsValidationsCancelledBeforeBatchIsSent() {
+        TokenValidationBatcher batcher = createBatcher(8, Duration.ofMillis(100));
+
+        Disposable cancelled = batcher.validate("user-cancelled").subscribe();
+        cancelled.dispose();
+        StepVerifier.create(batcher.validate("user-1").map(UserResponse::getName))
+                .expectNext("user-1")
+                .verifyComplete();
+
+        assertThat(batches).containsExactly(List.of("user-1"));
+    }
+
+    @Test
+    void fallsBackToUnaryCallWhenQueueRejects() {
+        TokenValidationBatcher batcher = createBatcher(8, Duration.ofMillis(2));
+        // Остановленный батчер отклоняет постановку в очередь
+        batcher.shutdown();
+        StepVerifier.create(batcher.validate("user-1"))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(5));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GrpcAuthService service = createService(true, batcher, meterRegistry);
+        StepVerifier.create(service.validateToken(legacyToken("user-2")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(unaryCalls.get()).isEqualTo(1);
+        assertThat(batches).isEmpty();
+        assertThat(meterRegistry.get("gateway.auth.grpc.batch.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void acceptsConcurrentValidationsFromManyThreads() throws Exception {
+        TokenValidationBatcher batcher = createBatcher(64, Duration.ofMillis(2));
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(VALIDATIONS);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Проверки ставятся в очередь одновременно с нескольких потоков, как с разных event loop
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = thread; i < VALIDATIONS; i += threads) {
+                        batcher.validate("user-" + i)
+                                .doOnError(RejectedExecutionException.class, e -> rejected.incrementAndGet())
+                                .doFinally(signal -> done.countDown())
+                                .subscribe(response -> { }, e -> { });
+                    }
+                });
+            }
+            start.countDown();
+            assertThat(done.await(1, TimeUnit.MINUTES)).isTrue();
+        } finally {
+            executor.shutdownNow();
+            batcher.shutdown();
+        }
+
+        log.info("{} validations from {} threads: {} rejected by the batch queue", VALIDATIONS, threads, rejected.get());
+        assertThat(rejected.get()).isLessThan(VALIDATIONS / 1000);
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(VALIDATIONS);
+    }
+
+    @Test
+    void batchingReducesRpcCountAndRaisesThroughput() {
+        String[] tokens = new String[VALIDATIONS * 2];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = legacyToken("user-" + i);
+        }
+
+        // Прогрев канала и JIT
+        run(createService(false), tokens, 0, 2_000);
+        run(createService(true), tokens, 0, 2_000);
+
+        rpcCalls.set(0);
+        long unaryMillis = run(createService(false), tokens, 0, VALIDATIONS);
+        int unaryCalls = rpcCalls.getAndSet(0);
+        long batchedMillis = run(createService(true), tokens, VALIDATIONS, VALIDATIONS);
+        int batchedCalls = rpcCalls.get();
+
+        log.info("{} validations, concurrency {}: unary {} ms ({} RPCs, {} validations/s), batched {} ms ({} RPCs, {} validations/s)",
+                VALIDATIONS, CONCURRENCY,
+                unaryMillis, unaryCalls, VALIDATIONS * 1000L / Math.max(1, unaryMillis),
+                batchedMillis, batchedCalls, VALIDATIONS * 1000L / Math.max(1, batchedMillis));
+        assertThat(unaryCalls).isEqualTo(VALIDATIONS);
+        assertThat(batchedCalls).isLessThan(VALIDATIONS / 10);
+    }
+
+    // HS512-токен нельзя проверить локально, поэтому он всегда уходит в auth-service
+    private static String legacyToken(String subject) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "legacy-secret".getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+
+    private long run(GrpcAuthService service, String[] tokens, int from, int count) {
+        long start = System.nanoTime();
+        Flux.range(from, count)
+                .flatMap(i -> service.validateToken(tokens[i]), CONCURRENCY)
+                .blockLast(Duration.ofMinutes(1));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private GrpcAuthService createService(boolean batchEnabled) {
+        return createService(batchEnabled, createBatcher(64, Duration.ofMillis(2)), new SimpleMeterRegistry());
+    }
+
+    private GrpcAuthService createService(boolean batchEnabled, TokenValidationBatcher batcher, SimpleMeterRegistry meterRegistry) {
+        JwtVerifier jwtVerifier = new JwtVerifier(Duration.ofMinutes(5), Duration.ofDays(1), Duration.ofSeconds(5));
+        GrpcAuthService service = new GrpcAuthService(jwtVerifier, GrpcAuthServiceTest.createRevokedTokens(channel),
+                batcher, GrpcAuthServiceTest.createGuard(),
+                VALIDATIONS * 4, Duration.ofMinutes(5), DEADLINE, batchEnabled, meterRegistry);
+        ReflectionTestUtils.setField(service, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return service;
+    }
+
+    private TokenValidationBatcher createBatcher(int maxSize, Duration window) {
+        TokenValidationBatcher batcher = new TokenValidationBatcher(maxSize, window, DEADLINE);
+        ReflectionTestUtils.setField(batcher, "authServiceStub", AuthServiceGrpc.newFutureStub(channel));
+        return batcher;
+    }
+
+    private class EchoAuthService extends AuthServiceGrpc.AuthServiceImplBase {
+
+        @Override
+        public void validateToken(TokenRequest request, StreamObserver<UserResponse> responseObserver) {
+            rpcCalls.incrementAndGet();
+            unaryCalls.incrementAndGet();
+            responseObserver.onNext(user(request.getToken()));
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void validateTokens(TokenBatchRequest request, StreamObserver<TokenBatchResponse> responseObserver) {
+            rpcCalls.incrementAndGet();
+            batches.add(List.copyOf(request.getTokensList()));
+            TokenBatchResponse.Builder response = TokenBatchResponse.newBuilder();
+            for (String token : request.getTokensList()) {
+                response.addResults(token.startsWith("invalid")
+                        ? TokenResult.newBuilder().setError("Invalid JWT token")
+                        : TokenResult.newBuilder().setUser(user(token)));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        private UserResponse user(String token) {
+            return UserResponse.newBuilder()
+                    .setId(1)
+                    .setName(token)
+                    .addRoles("USER")
+                    .setExpiresAt(System.currentTimeMillis() + 60_000)
+                    .build();
+        }
+    }
+}
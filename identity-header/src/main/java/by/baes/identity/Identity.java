@@ -0,0 +1,19 @@
+package by.baes.identity;
+
+import java.util.List;
+
+/**
+ * Пользователь, от имени которого gateway передаёт запрос во внутренние сервисы.
+ */
+public record Identity(long id, String name, String email, List<String> roles, long expiresAt) {
+
+    public Identity {
+        name = name != null ? name : "";
+        email = email != null ? email : "";
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+}
@@ -0,0 +1,95 @@
+package by.baes.identity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Формат заголовка X-Identity: base64url(payload || HMAC-SHA256(payload)).
+ * payload: версия (1 байт), id ключа (1 байт), срок действия в мс, id пользователя,
+ * имя, email, количество ролей (1 байт) и роли; строки — длина (2 байта) + UTF-8.
+ */
+public final class IdentityHeader {
+
+    public static final String NAME = "X-Identity";
+
+    static final byte VERSION = 1;
+    static final String MAC_ALGORITHM = "HmacSHA256";
+    static final int MAC_LENGTH = 32;
+    // Секрет не короче выхода HMAC-SHA256
+    static final int MIN_SECRET_LENGTH = 32;
+    private static final int MAX_ROLES = 255;
+
+    private IdentityHeader() {
+    }
+
+    static byte[] encode(int keyId, Identity identity) {
+        if (identity.roles().size() > MAX_ROLES) {
+            throw new IllegalArgumentException("Too many roles: " + identity.roles().size());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + MAC_LENGTH);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(keyId);
+            out.writeLong(identity.expiresAt());
+            out.writeLong(identity.id());
+            writeString(out, identity.name());
+            writeString(out, identity.email());
+            out.writeByte(identity.roles().size());
+            for (String role : identity.roles()) {
+                writeString(out, role);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Identity decode(ByteBuffer payload) {
+        try {
+            payload.position(2);
+            long expiresAt = payload.getLong();
+            long id = payload.getLong();
+            String name = readString(payload);
+            String email = readString(payload);
+            int roleCount = payload.get() & 0xFF;
+            List<String> roles = new ArrayList<>(roleCount);
+            for (int i = 0; i < roleCount; i++) {
+                roles.add(readString(payload));
+            }
+            if (payload.hasRemaining()) {
+                throw new InvalidIdentityException("Trailing bytes in identity header");
+            }
+            return new Identity(id, name, email, roles, expiresAt);
+        } catch (RuntimeException e) {
+            if (e instanceof InvalidIdentityException invalid) {
+                throw invalid;
+            }
+            throw new InvalidIdentityException("Malformed identity header");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Identity field is too long");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length > in.remaining()) {
+            throw new InvalidIdentityException("Malformed identity header");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
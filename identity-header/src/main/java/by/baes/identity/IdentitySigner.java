@@ -0,0 +1,80 @@
+package by.baes.identity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Выпускает короткоживущий заголовок X-Identity, подписанный общим с сервисами секретом.
+ */
+public class IdentitySigner {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final int keyId;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final ThreadLocal<Mac> mac;
+
+    public IdentitySigner(int keyId, byte[] secret, Duration ttl) {
+        this(keyId, secret, ttl, Clock.systemUTC());
+    }
+
+    public IdentitySigner(int keyId, byte[] secret, Duration ttl, Clock clock) {
+        if (keyId < 0 || keyId > 255) {
+            throw new IllegalArgumentException("Key id must fit in one byte: " + keyId);
+        }
+        this.keyId = keyId;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.mac = macFor(secret);
+    }
+
+    public String sign(long id, String name, String email, List<String> roles) {
+        return sign(issue(id, name, email, roles));
+    }
+
+    // Identity со сроком действия подписи; удобно, если пользователь нужен и без заголовка
+    public Identity issue(long id, String name, String email, List<String> roles) {
+        return new Identity(id, name, email, roles, clock.millis() + ttlMillis);
+    }
+
+    public String sign(Identity identity) {
+        byte[] payload = IdentityHeader.encode(keyId, identity);
+        Mac hmac = mac.get();
+        hmac.update(payload);
+        byte[] signed = Arrays.copyOf(payload, payload.length + IdentityHeader.MAC_LENGTH);
+        try {
+            hmac.doFinal(signed, payload.length);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign identity header", e);
+        }
+        return ENCODER.encodeToString(signed);
+    }
+
+    // Mac не потокобезопасен, а его создание дорогое — по экземпляру на поток
+    static ThreadLocal<Mac> macFor(byte[] secret) {
+        if (secret == null || secret.length < IdentityHeader.MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("Identity header secret must be at least "
+                    + IdentityHeader.MIN_SECRET_LENGTH + " bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.clone(), IdentityHeader.MAC_ALGORITHM);
+        ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(IdentityHeader.MAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+        // Проверяем ключ сразу, а не на первом запросе
+        mac.get();
+        return mac;
+    }
+}
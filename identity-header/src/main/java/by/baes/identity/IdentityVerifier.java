@@ -0,0 +1,73 @@
+package by.baes.identity;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Локальная проверка заголовка X-Identity: подпись, id ключа и срок действия, без обращения к auth-service.
+ * Несколько ключей позволяют менять секрет без одновременного перезапуска всех сервисов.
+ */
+public class IdentityVerifier {
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // Версия, id ключа, срок, id пользователя, длины имени и email, количество ролей
+    private static final int MIN_PAYLOAD_LENGTH = 1 + 1 + 8 + 8 + 2 + 2 + 1;
+
+    private final Map<Integer, ThreadLocal<Mac>> macs = new HashMap<>();
+    private final Clock clock;
+
+    public IdentityVerifier(Map<Integer, byte[]> secrets) {
+        this(secrets, Clock.systemUTC());
+    }
+
+    public IdentityVerifier(Map<Integer, byte[]> secrets, Clock clock) {
+        if (secrets.isEmpty()) {
+            throw new IllegalArgumentException("At least one identity header secret is required");
+        }
+        secrets.forEach((keyId, secret) -> macs.put(keyId, IdentitySigner.macFor(secret)));
+        this.clock = clock;
+    }
+
+    public Identity verify(String header) {
+        if (header == null || header.isEmpty()) {
+            throw new InvalidIdentityException("Identity header is missing");
+        }
+        byte[] signed;
+        try {
+            signed = DECODER.decode(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidIdentityException("Identity header is not base64url");
+        }
+        int payloadLength = signed.length - IdentityHeader.MAC_LENGTH;
+        if (payloadLength < MIN_PAYLOAD_LENGTH) {
+            throw new InvalidIdentityException("Identity header is too short");
+        }
+        if (signed[0] != IdentityHeader.VERSION) {
+            throw new InvalidIdentityException("Unsupported identity header version: " + signed[0]);
+        }
+        ThreadLocal<Mac> mac = macs.get(signed[1] & 0xFF);
+        if (mac == null) {
+            throw new InvalidIdentityException("Unknown identity header key: " + (signed[1] & 0xFF));
+        }
+
+        Mac hmac = mac.get();
+        hmac.update(signed, 0, payloadLength);
+        byte[] expected = hmac.doFinal();
+        byte[] actual = new byte[IdentityHeader.MAC_LENGTH];
+        System.arraycopy(signed, payloadLength, actual, 0, actual.length);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new InvalidIdentityException("Identity header signature mismatch");
+        }
+
+        Identity identity = IdentityHeader.decode(ByteBuffer.wrap(signed, 0, payloadLength));
+        if (identity.expiresAt() <= clock.millis()) {
+            throw new InvalidIdentityException("Identity header has expired");
+        }
+        return identity;
+    }
+}
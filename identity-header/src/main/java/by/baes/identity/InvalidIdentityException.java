@@ -0,0 +1,7 @@
+package by.baes.identity;
+
+public class InvalidIdentityException extends RuntimeException {
+    public InvalidIdentityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,90 @@
+package by.baes.identity;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdentityVerifierTest {
+
+    private static final byte[] SECRET = "identity-header-secret-for-tests-0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_SECRET = "another-identity-header-secret-for-tests-42".getBytes(StandardCharsets.UTF_8);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private final IdentitySigner signer = new IdentitySigner(1, SECRET, Duration.ofSeconds(30), CLOCK);
+    private final IdentityVerifier verifier = new IdentityVerifier(Map.of(1, SECRET), CLOCK);
+
+    @Test
+    void roundTripsIdentity() {
+        String header = signer.sign(42, "Иван", "ivan@example.com", List.of("USER", "ADMIN"));
+
+        Identity identity = verifier.verify(header);
+
+        assertEquals(42, identity.id());
+        assertEquals("Иван", identity.name());
+        assertEquals("ivan@example.com", identity.email());
+        assertEquals(List.of("USER", "ADMIN"), identity.roles());
+        assertEquals(CLOCK.millis() + 30_000, identity.expiresAt());
+        assertTrue(identity.hasRole("ADMIN"));
+        assertTrue(header.length() < 160, "header is compact: " + header.length());
+    }
+
+    @Test
+    void rejectsTamperedHeader() {
+        byte[] signed = Base64.getUrlDecoder().decode(signer.sign(42, "user", "", List.of("USER")));
+        // Подменяем id пользователя
+        signed[17] ^= 1;
+
+        assertThrows(InvalidIdentityException.class,
+                () -> verifier.verify(Base64.getUrlEncoder().withoutPadding().encodeToString(signed)));
+    }
+
+    @Test
+    void rejectsExpiredHeader() {
+        String header = signer.sign(42, "user", "", List.of());
+        IdentityVerifier later = new IdentityVerifier(Map.of(1, SECRET), Clock.offset(CLOCK, Duration.ofSeconds(31)));
+
+        assertThrows(InvalidIdentityException.class, () -> later.verify(header));
+    }
+
+    @Test
+    void rejectsUnknownKeyAndForeignSecret() {
+        String foreign = new IdentitySigner(1, OTHER_SECRET, Duration.ofSeconds(30), CLOCK).sign(1, "user", "", List.of());
+        String unknownKey = new IdentitySigner(2, SECRET, Duration.ofSeconds(30), CLOCK).sign(1, "user", "", List.of());
+
+        assertThrows(InvalidIdentityException.class, () -> verifier.verify(foreign));
+        assertThrows(InvalidIdentityException.class, () -> verifier.verify(unknownKey));
+    }
+
+    @Test
+    void acceptsPreviousKeyDuringRotation() {
+        IdentityVerifier rotating = new IdentityVerifier(Map.of(1, SECRET, 2, OTHER_SECRET), CLOCK);
+        String current = new IdentitySigner(2, OTHER_SECRET, Duration.ofSeconds(30), CLOCK).sign(7, "user", "", List.of());
+
+        assertEquals(7, rotating.verify(current).id());
+        assertEquals(42, rotating.verify(signer.sign(42, "user", "", List.of())).id());
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThrows(InvalidIdentityException.class, () -> verifier.verify(null));
+        assertThrows(InvalidIdentityException.class, () -> verifier.verify("not base64!"));
+        assertThrows(InvalidIdentityException.class, () -> verifier.verify("AQE"));
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new IdentitySigner(1, "short".getBytes(StandardCharsets.UTF_8), Duration.ofSeconds(30)));
+    }
+}
@@ -0,0 +1,19 @@
+package by.baes.photos3service.config;
+
+import by.baes.identity.IdentityVerifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@Configuration
+public class IdentityHeaderConfig {
+
+    @Bean
+    public IdentityVerifier identityVerifier(@Value("${identity.header.key-id:1}") int keyId,
+                                             @Value("${identity.header.secret}") String secret) {
+        return new IdentityVerifier(Map.of(keyId, secret.getBytes(StandardCharsets.UTF_8)));
+    }
+}
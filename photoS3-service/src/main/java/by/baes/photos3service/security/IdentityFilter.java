@@ -0,0 +1,48 @@
+package by.baes.photos3service.security;
+
+import by.baes.identity.Identity;
+import by.baes.identity.IdentityHeader;
+import by.baes.identity.IdentityVerifier;
+import by.baes.identity.InvalidIdentityException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Проверяет заголовок X-Identity от gateway и кладёт пользователя в атрибут запроса.
+ * Запросы без заголовка пропускаются как анонимные, с поддельным или просроченным — отклоняются.
+ */
+@Component
+@Slf4j
+public class IdentityFilter extends OncePerRequestFilter {
+
+    public static final String IDENTITY_ATTRIBUTE = Identity.class.getName();
+
+    private final IdentityVerifier identityVerifier;
+
+    public IdentityFilter(IdentityVerifier identityVerifier) {
+        this.identityVerifier = identityVerifier;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(IdentityHeader.NAME);
+        if (header != null) {
+            try {
+                request.setAttribute(IDENTITY_ATTRIBUTE, identityVerifier.verify(header));
+            } catch (InvalidIdentityException e) {
+                log.warn("Rejected identity header: {}", e.getMessage());
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid identity header");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}